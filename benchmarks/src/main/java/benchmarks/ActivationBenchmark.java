@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures every {@code ActivationFunction} applied to, and differentiated at, the 784 values of one synthetic
+ * image shifted to [-0.5, 0.5) so that both branches of the piecewise functions are taken, one call per value and
+ * in one bulk call over the whole range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ActivationBenchmark {
+    @Param({"ReLU", "LeakyReLU", "Sigmoid", "Tanh", "Linear", "FastSigmoid", "FastTanh"})
+    public String activationFunction;
+    
+    private Object function;
+    private double[] values;
+    private double[] results;
+    
+    @Setup
+    public void setUp() {
+        function = Library.create(activationFunction);
+        values = SyntheticMnist.images(1, 42)[0];
+        for (int i = 0; i < values.length; i++) {
+            values[i] -= 0.5;
+        }
+        results = new double[values.length];
+    }
+    
+    @Benchmark
+    public double[] activate() throws Throwable {
+        for (int i = 0; i < values.length; i++) {
+            results[i] = (double) Library.ACTIVATE.invokeExact(function, values[i]);
+        }
+        return results;
+    }
+    
+    @Benchmark
+    public double[] derive() throws Throwable {
+        for (int i = 0; i < values.length; i++) {
+            results[i] = (double) Library.DERIVE.invokeExact(function, values[i]);
+        }
+        return results;
+    }
+    
+    @Benchmark
+    public double[] activateRange() throws Throwable {
+        Library.ACTIVATE_RANGE.invokeExact(function, values, results, 0, values.length);
+        return results;
+    }
+    
+    @Benchmark
+    public double[] deriveInto() throws Throwable {
+        Library.DERIVE_INTO.invokeExact(function, values, results, 0, values.length);
+        return results;
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the forward and backward passes of a 784-input, 128-neuron ReLU layer, for a single example and for a
+ * batch of 64.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class LayerBenchmark {
+    private static final int BATCH_SIZE = 64;
+    private static final double LEARNING_RATE = 1e-6;
+    
+    private Object layer;
+    private double[] input;
+    private double[] output;
+    private double[] errors;
+    private double[][] batch;
+    private double[][] batchErrors;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        layer = (Object) Library.NEW_LAYER.invokeExact(SyntheticMnist.HIDDEN_SIZE, SyntheticMnist.INPUT_SIZE,
+                                                       Library.create("ReLU"));
+        batch = SyntheticMnist.images(BATCH_SIZE, 42);
+        input = batch[0];
+        output = new double[SyntheticMnist.HIDDEN_SIZE];
+        batchErrors = new double[BATCH_SIZE][SyntheticMnist.HIDDEN_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            for (int j = 0; j < SyntheticMnist.HIDDEN_SIZE; j++) {
+                batchErrors[i][j] = (i + j) % 7 * 0.01 - 0.03;
+            }
+        }
+        errors = batchErrors[0];
+    }
+    
+    @Benchmark
+    public double[] feedForward() throws Throwable {
+        Library.LAYER_FEED_FORWARD.invokeExact(layer, input, output);
+        return output;
+    }
+    
+    @Benchmark
+    public double[][] feedForwardBatch() throws Throwable {
+        return (double[][]) Library.LAYER_FEED_FORWARD_BATCH.invokeExact(layer, batch);
+    }
+    
+    @Benchmark
+    public double[] backPropagate() throws Throwable {
+        return (double[]) Library.LAYER_BACK_PROPAGATE.invokeExact(layer, errors, input, LEARNING_RATE);
+    }
+    
+    @Benchmark
+    public double[][] backPropagateBatch() throws Throwable {
+        return (double[][]) Library.LAYER_BACK_PROPAGATE_BATCH.invokeExact(layer, batchErrors, batch, LEARNING_RATE);
+    }
+}
@@ -0,0 +1,220 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Method handles onto the library. The library lives in the unnamed package, which code in a named package cannot
+ * import, and JMH does not accept benchmarks in the unnamed package, so the benchmarks reach the library through
+ * these handles. Every handle is a static final constant whose receiver and parameter types are erased to
+ * {@code Object}, so the JIT inlines {@code invokeExact} calls like direct calls.
+ */
+final class Library {
+    private static final Class<?> NEURAL_NETWORK = load("NeuralNetwork");
+    private static final Class<?> MAPPED_NEURAL_NETWORK = load("MappedNeuralNetwork");
+    private static final Class<?> QUANTIZED_NEURAL_NETWORK = load("QuantizedNeuralNetwork");
+    private static final Class<?> DATASET = load("Dataset");
+    private static final Class<?> LAYER = load("Layer");
+    private static final Class<?> ACTIVATION_FUNCTION = load("ActivationFunction");
+    private static final Class<?> LOSS_FUNCTION = load("LossFunction");
+    private static final Class<?> PARAMETER_STORAGE = load("ParameterStorage");
+    private static final Class<?> OPTIMIZER = load("Optimizer");
+    private static final Class<?> MATH_UTILITIES = load("MathUtilities");
+    private static final Class<?> VECTOR_MATH = load("VectorMath");
+    
+    /** {@code new NeuralNetwork(int, int[], int, ActivationFunction, LossFunction)} */
+    static final MethodHandle NEW_NETWORK = constructor(NEURAL_NETWORK, int.class, int[].class, int.class,
+                                                        ACTIVATION_FUNCTION, LOSS_FUNCTION);
+    /** {@code new NeuralNetwork(int, int[], int, ActivationFunction, LossFunction, ParameterStorage)} */
+    static final MethodHandle NEW_NETWORK_WITH_STORAGE = constructor(NEURAL_NETWORK, int.class, int[].class, int.class,
+                                                                     ACTIVATION_FUNCTION, LOSS_FUNCTION,
+                                                                     PARAMETER_STORAGE);
+    /** {@code NeuralNetwork.setOptimizer(Optimizer)} */
+    static final MethodHandle SET_OPTIMIZER = method(NEURAL_NETWORK, "setOptimizer", OPTIMIZER);
+    /** {@code NeuralNetwork.close()} */
+    static final MethodHandle CLOSE = method(NEURAL_NETWORK, "close");
+    /** {@code NeuralNetwork.predict(double[])} */
+    static final MethodHandle PREDICT = method(NEURAL_NETWORK, "predict", double[].class);
+    /** {@code NeuralNetwork.predict(double[], double[])} */
+    static final MethodHandle PREDICT_INTO = method(NEURAL_NETWORK, "predict", double[].class, double[].class);
+    /** {@code NeuralNetwork.predict(double[][])} */
+    static final MethodHandle PREDICT_BATCH = method(NEURAL_NETWORK, "predict", double[][].class);
+    /** {@code NeuralNetwork.classify(double[])} */
+    static final MethodHandle CLASSIFY = method(NEURAL_NETWORK, "classify", double[].class);
+    /** {@code NeuralNetwork.classify(double[][], int[])} */
+    static final MethodHandle CLASSIFY_BATCH_INTO = method(NEURAL_NETWORK, "classify", double[][].class, int[].class);
+    /** {@code NeuralNetwork.topK(double[], int)} */
+    static final MethodHandle TOP_K = method(NEURAL_NETWORK, "topK", double[].class, int.class);
+    /** {@code NeuralNetwork.train(double[][], double[][], int, double)} */
+    static final MethodHandle TRAIN = method(NEURAL_NETWORK, "train", double[][].class, double[][].class,
+                                             int.class, double.class);
+    /** {@code NeuralNetwork.train(double[][], double[][], int, double, int)} */
+    static final MethodHandle TRAIN_BATCHED = method(NEURAL_NETWORK, "train", double[][].class, double[][].class,
+                                                     int.class, double.class, int.class);
+    /** {@code new Dataset(double[][], double[][])} */
+    static final MethodHandle NEW_DATASET = constructor(DATASET, double[][].class, double[][].class);
+    /** {@code NeuralNetwork.train(Dataset, int, double)} */
+    static final MethodHandle TRAIN_DATASET = method(NEURAL_NETWORK, "train", DATASET, int.class, double.class);
+    /** {@code NeuralNetwork.train(Dataset, int, double, int)} */
+    static final MethodHandle TRAIN_DATASET_BATCHED = method(NEURAL_NETWORK, "train", DATASET, int.class,
+                                                             double.class, int.class);
+    /** {@code NeuralNetwork.train(Dataset, int, double, int, int)} */
+    static final MethodHandle TRAIN_DATASET_PARALLEL = method(NEURAL_NETWORK, "train", DATASET, int.class,
+                                                              double.class, int.class, int.class);
+    /** {@code NeuralNetwork.trainHogwild(Dataset, int, double, int)} */
+    static final MethodHandle TRAIN_HOGWILD_DATASET = method(NEURAL_NETWORK, "trainHogwild", DATASET, int.class,
+                                                             double.class, int.class);
+    /** {@code NeuralNetwork.save(String)} */
+    static final MethodHandle SAVE = method(NEURAL_NETWORK, "save", String.class);
+    /** {@code NeuralNetwork.load(String)} */
+    static final MethodHandle LOAD = method(NEURAL_NETWORK, "load", String.class);
+    /** {@code MappedNeuralNetwork.load(String)} */
+    static final MethodHandle LOAD_MAPPED = method(MAPPED_NEURAL_NETWORK, "load", String.class);
+    /** {@code MappedNeuralNetwork.predict(double[], double[])} */
+    static final MethodHandle MAPPED_PREDICT_INTO = method(MAPPED_NEURAL_NETWORK, "predict", double[].class,
+                                                           double[].class);
+    /** {@code new QuantizedNeuralNetwork(NeuralNetwork, double[][])} */
+    static final MethodHandle NEW_QUANTIZED_NETWORK = constructor(QUANTIZED_NEURAL_NETWORK, NEURAL_NETWORK,
+                                                                  double[][].class);
+    /** {@code QuantizedNeuralNetwork.predict(double[], double[])} */
+    static final MethodHandle QUANTIZED_PREDICT_INTO = method(QUANTIZED_NEURAL_NETWORK, "predict", double[].class,
+                                                              double[].class);
+    /** {@code new Layer(int, int, ActivationFunction)} */
+    static final MethodHandle NEW_LAYER = constructor(LAYER, int.class, int.class, ACTIVATION_FUNCTION);
+    /** {@code Layer.feedForward(double[], double[])} */
+    static final MethodHandle LAYER_FEED_FORWARD = method(LAYER, "feedForward", double[].class, double[].class);
+    /** {@code Layer.feedForward(double[][])} */
+    static final MethodHandle LAYER_FEED_FORWARD_BATCH = method(LAYER, "feedForward", double[][].class);
+    /** {@code Layer.backPropagate(double[], double[], double)} */
+    static final MethodHandle LAYER_BACK_PROPAGATE = method(LAYER, "backPropagate", double[].class, double[].class,
+                                                            double.class);
+    /** {@code Layer.backPropagate(double[][], double[][], double)} */
+    static final MethodHandle LAYER_BACK_PROPAGATE_BATCH = method(LAYER, "backPropagate", double[][].class,
+                                                                  double[][].class, double.class);
+    /** {@code ActivationFunction.activate(double)} */
+    static final MethodHandle ACTIVATE = method(ACTIVATION_FUNCTION, "activate", double.class);
+    /** {@code ActivationFunction.derive(double)} */
+    static final MethodHandle DERIVE = method(ACTIVATION_FUNCTION, "derive", double.class);
+    /** {@code ActivationFunction.activate(double[], double[], int, int)} */
+    static final MethodHandle ACTIVATE_RANGE = method(ACTIVATION_FUNCTION, "activate", double[].class, double[].class,
+                                                      int.class, int.class);
+    /** {@code ActivationFunction.deriveInto(double[], double[], int, int)} */
+    static final MethodHandle DERIVE_INTO = method(ACTIVATION_FUNCTION, "deriveInto", double[].class, double[].class,
+                                                   int.class, int.class);
+    /** {@code MathUtilities.matrixMultiply(double[], double[], double[], int, int, int)} */
+    static final MethodHandle MATRIX_MULTIPLY = method(MATH_UTILITIES, "matrixMultiply", double[].class,
+                                                       double[].class, double[].class, int.class, int.class,
+                                                       int.class);
+    /** {@code MathUtilities.dotProduct(double[], double[])} */
+    static final MethodHandle DOT_PRODUCT = method(MATH_UTILITIES, "dotProduct", double[].class, double[].class);
+    /** {@code MathUtilities.softmax(double[], double[])} */
+    static final MethodHandle SOFTMAX = method(MATH_UTILITIES, "softmax", double[].class, double[].class);
+    /** {@code MathUtilities.dotProductScalar(double[], int, double[], int, int)} */
+    static final MethodHandle DOT_PRODUCT_SCALAR = method(MATH_UTILITIES, "dotProductScalar", double[].class,
+                                                          int.class, double[].class, int.class, int.class);
+    /** {@code VectorMath.dotProduct(double[], int, double[], int, int)} */
+    static final MethodHandle DOT_PRODUCT_VECTOR = method(VECTOR_MATH, "dotProduct", double[].class, int.class,
+                                                          double[].class, int.class, int.class);
+    /** {@code MathUtilities.addScalar(double[], double[], double[])} */
+    static final MethodHandle ADD_SCALAR = method(MATH_UTILITIES, "addScalar", double[].class, double[].class,
+                                                  double[].class);
+    /** {@code VectorMath.add(double[], double[], double[])} */
+    static final MethodHandle ADD_VECTOR = method(VECTOR_MATH, "add", double[].class, double[].class, double[].class);
+    /** {@code MathUtilities.subtractScalar(double[], double[], double[])} */
+    static final MethodHandle SUBTRACT_SCALAR = method(MATH_UTILITIES, "subtractScalar", double[].class,
+                                                       double[].class, double[].class);
+    /** {@code VectorMath.subtract(double[], double[], double[])} */
+    static final MethodHandle SUBTRACT_VECTOR = method(VECTOR_MATH, "subtract", double[].class, double[].class,
+                                                       double[].class);
+    /** {@code MathUtilities.distanceScalar(double[], double[])} */
+    static final MethodHandle DISTANCE_SCALAR = method(MATH_UTILITIES, "distanceScalar", double[].class,
+                                                       double[].class);
+    /** {@code VectorMath.squaredDistance(double[], double[])} */
+    static final MethodHandle SQUARED_DISTANCE_VECTOR = method(VECTOR_MATH, "squaredDistance", double[].class,
+                                                               double[].class);
+    
+    private Library() {
+    }
+    
+    /**
+     * Creates an instance of a library class through its public no-argument constructor.
+     *
+     * @param className The simple name of a class in the library, such as {@code "ReLU"}.
+     * @return The new instance.
+     */
+    static Object create(String className) {
+        try {
+            return load(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + className + ".", e);
+        }
+    }
+    
+    /**
+     * Returns a constant of {@code ParameterStorage}.
+     *
+     * @param name The name of the constant, such as {@code "OFF_HEAP"}.
+     * @return The constant.
+     */
+    static Object storage(String name) {
+        return Enum.valueOf(PARAMETER_STORAGE.asSubclass(Enum.class), name);
+    }
+    
+    private static Class<?> load(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The library is not on the class path.", e);
+        }
+    }
+    
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = owner.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot bind constructor of " + owner.getName() + ".", e);
+        }
+    }
+    
+    private static MethodHandle method(Class<?> owner, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = owner.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot bind " + owner.getName() + "." + name + ".", e);
+        }
+    }
+    
+    /**
+     * Erases library types to {@code Object} while keeping primitives and arrays of primitives, so that callers
+     * can use {@code invokeExact} with their natural argument and return types.
+     */
+    private static MethodType erase(MethodType type) {
+        MethodType erased = type;
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (!isPlatformType(type.parameterType(i))) {
+                erased = erased.changeParameterType(i, Object.class);
+            }
+        }
+        if (!isPlatformType(type.returnType())) {
+            erased = erased.changeReturnType(Object.class);
+        }
+        return erased;
+    }
+    
+    private static boolean isPlatformType(Class<?> type) {
+        Class<?> component = type;
+        while (component.isArray()) {
+            component = component.getComponentType();
+        }
+        return component.isPrimitive() || component.getClassLoader() == null;
+    }
+}
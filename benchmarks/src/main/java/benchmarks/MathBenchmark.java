@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@code MathUtilities} kernels at the sizes a 784-128-10 network uses: the 64 x 784 by 784 x 128
+ * matrix product of a batch forward pass, a 784-element dot product and a 10-class softmax.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class MathBenchmark {
+    private static final int ROWS = 64;
+    
+    private double[] matrixA;
+    private double[] matrixB;
+    private double[] product;
+    private double[] vectorA;
+    private double[] vectorB;
+    private double[] scores;
+    private double[] probabilities;
+    
+    @Setup
+    public void setUp() {
+        matrixA = flatten(SyntheticMnist.images(ROWS, 42));
+        matrixB = flatten(SyntheticMnist.images(SyntheticMnist.HIDDEN_SIZE, 43));
+        product = new double[ROWS * SyntheticMnist.HIDDEN_SIZE];
+        vectorA = SyntheticMnist.images(1, 44)[0];
+        vectorB = SyntheticMnist.images(1, 45)[0];
+        scores = new double[SyntheticMnist.OUTPUT_SIZE];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = vectorA[i] * 10 - 5;
+        }
+        probabilities = new double[SyntheticMnist.OUTPUT_SIZE];
+    }
+    
+    @Benchmark
+    public double[] matrixMultiply() throws Throwable {
+        Library.MATRIX_MULTIPLY.invokeExact(matrixA, matrixB, product, ROWS, SyntheticMnist.HIDDEN_SIZE,
+                                            SyntheticMnist.INPUT_SIZE);
+        return product;
+    }
+    
+    @Benchmark
+    public double dotProduct() throws Throwable {
+        return (double) Library.DOT_PRODUCT.invokeExact(vectorA, vectorB);
+    }
+    
+    @Benchmark
+    public double[] softmax() throws Throwable {
+        return (double[]) Library.SOFTMAX.invokeExact(scores, probabilities);
+    }
+    
+    private static double[] flatten(double[][] matrix) {
+        int columns = matrix[0].length;
+        double[] flat = new double[matrix.length * columns];
+        for (int i = 0; i < matrix.length; i++) {
+            System.arraycopy(matrix[i], 0, flat, i * columns, columns);
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures saving and loading a 784-4096-2048-10 network, about 11.6 million parameters, in the binary model format,
+ * and mapping the same file for inference. The mapped benchmark includes one prediction so that the weights are
+ * actually touched, though they stay in the page cache between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx2g"})
+@State(Scope.Thread)
+public class ModelFileBenchmark {
+    private Object network;
+    private Path file;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        network = (Object) Library.NEW_NETWORK.invokeExact(SyntheticMnist.INPUT_SIZE, new int[]{4096, 2048},
+                                                           SyntheticMnist.OUTPUT_SIZE, Library.create("ReLU"),
+                                                           Library.create("CrossEntropyLoss"));
+        file = Files.createTempFile("model", ".bin");
+        Library.SAVE.invokeExact(network, file.toString());
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public void save() throws Throwable {
+        Library.SAVE.invokeExact(network, file.toString());
+    }
+    
+    @Benchmark
+    public Object load() throws Throwable {
+        return (Object) Library.LOAD.invokeExact(file.toString());
+    }
+    
+    @Benchmark
+    public double[] loadMappedAndPredict() throws Throwable {
+        double[] outputs = new double[SyntheticMnist.OUTPUT_SIZE];
+        try (AutoCloseable mapped = (AutoCloseable) (Object) Library.LOAD_MAPPED.invokeExact(file.toString())) {
+            Library.MAPPED_PREDICT_INTO.invokeExact((Object) mapped, new double[SyntheticMnist.INPUT_SIZE], outputs);
+        }
+        return outputs;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code NeuralNetwork.predict} on a 784-128-10 network for single inputs, with and without a
+ * caller-supplied output array, and for batches, with the weights on the heap and off-heap. The {@code classify}
+ * and {@code topK} benchmarks measure the paths that skip the full softmax.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class NetworkBenchmark {
+    @Param({"64", "256"})
+    public int batchSize;
+    
+    @Param({"HEAP", "OFF_HEAP"})
+    public String storage;
+    
+    private Object network;
+    private double[] input;
+    private double[] output;
+    private double[][] batch;
+    private int[] classes;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        network = SyntheticMnist.network(storage);
+        batch = SyntheticMnist.images(batchSize, 42);
+        input = batch[0];
+        output = new double[SyntheticMnist.OUTPUT_SIZE];
+        classes = new int[batchSize];
+    }
+    
+    @TearDown
+    public void tearDown() throws Throwable {
+        Library.CLOSE.invokeExact(network);
+    }
+    
+    @Benchmark
+    public double[] predict() throws Throwable {
+        return (double[]) Library.PREDICT.invokeExact(network, input);
+    }
+    
+    @Benchmark
+    public double[] predictInto() throws Throwable {
+        Library.PREDICT_INTO.invokeExact(network, input, output);
+        return output;
+    }
+    
+    @Benchmark
+    public double[][] predictBatch() throws Throwable {
+        return (double[][]) Library.PREDICT_BATCH.invokeExact(network, batch);
+    }
+    
+    @Benchmark
+    public int classify() throws Throwable {
+        return (int) Library.CLASSIFY.invokeExact(network, input);
+    }
+    
+    @Benchmark
+    public int[] classifyBatch() throws Throwable {
+        Library.CLASSIFY_BATCH_INTO.invokeExact(network, batch, classes);
+        return classes;
+    }
+    
+    @Benchmark
+    public Object topK() throws Throwable {
+        return (Object) Library.TOP_K.invokeExact(network, input, 3);
+    }
+}
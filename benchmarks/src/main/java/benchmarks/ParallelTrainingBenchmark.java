@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how one training epoch of a 784-128-10 network over 4096 synthetic examples scales with the number of
+ * threads: batches of 256 shared by data-parallel workers, and lock-free Hogwild! training one example at a time.
+ * The per-epoch progress lines of {@code train} are discarded while the benchmark runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ParallelTrainingBenchmark {
+    private static final int SAMPLES = 4_096;
+    private static final int BATCH_SIZE = 256;
+    // Per-example steps on 784 unnormalized inputs diverge from 0.01 upwards, which would time arithmetic on infinities
+    private static final double LEARNING_RATE = 0.001;
+    
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+    
+    private Object network;
+    private Object dataset;
+    private PrintStream standardOutput;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        // The console reporter binds System.out when the network is created
+        standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        network = SyntheticMnist.network();
+        dataset = (Object) Library.NEW_DATASET.invokeExact(SyntheticMnist.images(SAMPLES, 42),
+                                                           SyntheticMnist.labels(SAMPLES, 43));
+    }
+    
+    @TearDown
+    public void tearDown() throws Throwable {
+        System.setOut(standardOutput);
+        Library.CLOSE.invokeExact(network);
+    }
+    
+    @Benchmark
+    public void trainEpochDataParallel() throws Throwable {
+        Library.TRAIN_DATASET_PARALLEL.invokeExact(network, dataset, 1, LEARNING_RATE, BATCH_SIZE, threads);
+    }
+    
+    @Benchmark
+    public void trainEpochHogwild() throws Throwable {
+        Library.TRAIN_HOGWILD_DATASET.invokeExact(network, dataset, 1, LEARNING_RATE, threads);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares single-input prediction in double precision with the int8 quantized counterpart of the network,
+ * calibrated on 256 synthetic images. The 784-128-10 network fits in cache, where the integer and floating-point
+ * kernels run at about the same speed; the 784-2048-10 network streams its weights from memory on every prediction,
+ * which is where the smaller int8 weights pay off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class QuantizedBenchmark {
+    @Param({"128", "2048"})
+    public int hiddenSize;
+    
+    private Object network;
+    private Object quantized;
+    private double[] input;
+    private double[] output;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        network = (Object) Library.NEW_NETWORK.invokeExact(SyntheticMnist.INPUT_SIZE, new int[]{hiddenSize},
+                                                           SyntheticMnist.OUTPUT_SIZE, Library.create("ReLU"),
+                                                           Library.create("CrossEntropyLoss"));
+        double[][] calibration = SyntheticMnist.images(256, 42);
+        quantized = (Object) Library.NEW_QUANTIZED_NETWORK.invokeExact(network, calibration);
+        input = calibration[0];
+        output = new double[SyntheticMnist.OUTPUT_SIZE];
+    }
+    
+    @Benchmark
+    public double[] predictDouble() throws Throwable {
+        Library.PREDICT_INTO.invokeExact(network, input, output);
+        return output;
+    }
+    
+    @Benchmark
+    public double[] predictQuantized() throws Throwable {
+        Library.QUANTIZED_PREDICT_INTO.invokeExact(quantized, input, output);
+        return output;
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates reproducible random data with the shape of MNIST: 784 pixel intensities in [0, 1) per image and
+ * one-hot labels over 10 classes.
+ */
+final class SyntheticMnist {
+    static final int INPUT_SIZE = 784;
+    static final int HIDDEN_SIZE = 128;
+    static final int OUTPUT_SIZE = 10;
+    
+    private SyntheticMnist() {
+    }
+    
+    /**
+     * Generates random images.
+     *
+     * @param count The number of images.
+     * @param seed The seed of the random number generator.
+     * @return A count x 784 array of pixel intensities.
+     */
+    static double[][] images(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] images = new double[count][INPUT_SIZE];
+        for (double[] image : images) {
+            for (int i = 0; i < INPUT_SIZE; i++) {
+                image[i] = random.nextDouble();
+            }
+        }
+        return images;
+    }
+    
+    /**
+     * Generates random one-hot labels.
+     *
+     * @param count The number of labels.
+     * @param seed The seed of the random number generator.
+     * @return A count x 10 array of one-hot labels.
+     */
+    static double[][] labels(int count, long seed) {
+        Random random = new Random(seed);
+        double[][] labels = new double[count][OUTPUT_SIZE];
+        for (double[] label : labels) {
+            label[random.nextInt(OUTPUT_SIZE)] = 1;
+        }
+        return labels;
+    }
+    
+    /**
+     * Creates a 784-128-10 network with ReLU hidden units and cross-entropy loss.
+     *
+     * @return The new network, typed as {@code Object} because the library cannot be named from this package.
+     */
+    static Object network() throws Throwable {
+        return (Object) Library.NEW_NETWORK.invokeExact(INPUT_SIZE, new int[]{HIDDEN_SIZE}, OUTPUT_SIZE,
+                                                        Library.create("ReLU"), Library.create("CrossEntropyLoss"));
+    }
+    
+    /**
+     * Creates a 784-128-10 network with ReLU hidden units and cross-entropy loss whose weights are kept in the given
+     * storage.
+     *
+     * @param storage The name of a {@code ParameterStorage} constant, {@code "HEAP"} or {@code "OFF_HEAP"}.
+     * @return The new network, which must be closed to release off-heap weights.
+     */
+    static Object network(String storage) throws Throwable {
+        return (Object) Library.NEW_NETWORK_WITH_STORAGE.invokeExact(INPUT_SIZE, new int[]{HIDDEN_SIZE}, OUTPUT_SIZE,
+                                                                     Library.create("ReLU"),
+                                                                     Library.create("CrossEntropyLoss"),
+                                                                     Library.storage(storage));
+    }
+}
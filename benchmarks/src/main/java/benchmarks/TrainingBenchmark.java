@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one training epoch of a 784-128-10 network over 1024 synthetic examples, both one example at a time and
+ * in batches of 32, with the weights on the heap and off-heap. The examples are passed either as arrays, which
+ * {@code train} copies into a dataset on every call, or as a dataset built once. Batched training uses the given
+ * optimizer; training one example at a time always uses plain gradient descent. The per-epoch progress lines of
+ * {@code train} are discarded while the benchmark runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class TrainingBenchmark {
+    private static final int SAMPLES = 1_024;
+    private static final int BATCH_SIZE = 32;
+    private static final double LEARNING_RATE = 0.01;
+    
+    @Param({"HEAP", "OFF_HEAP"})
+    public String storage;
+    
+    @Param({"SGD", "Adam"})
+    public String optimizer;
+    
+    private Object network;
+    private double[][] inputs;
+    private double[][] labels;
+    private Object dataset;
+    private PrintStream standardOutput;
+    
+    @Setup
+    public void setUp() throws Throwable {
+        // The console reporter binds System.out when the network is created
+        standardOutput = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        network = SyntheticMnist.network(storage);
+        Library.SET_OPTIMIZER.invokeExact(network, Library.create(optimizer));
+        inputs = SyntheticMnist.images(SAMPLES, 42);
+        labels = SyntheticMnist.labels(SAMPLES, 43);
+        dataset = (Object) Library.NEW_DATASET.invokeExact(inputs, labels);
+    }
+    
+    @TearDown
+    public void tearDown() throws Throwable {
+        System.setOut(standardOutput);
+        Library.CLOSE.invokeExact(network);
+    }
+    
+    @Benchmark
+    public void trainEpoch() throws Throwable {
+        Library.TRAIN.invokeExact(network, inputs, labels, 1, LEARNING_RATE);
+    }
+    
+    @Benchmark
+    public void trainEpochBatched() throws Throwable {
+        Library.TRAIN_BATCHED.invokeExact(network, inputs, labels, 1, LEARNING_RATE, BATCH_SIZE);
+    }
+    
+    @Benchmark
+    public void trainEpochDataset() throws Throwable {
+        Library.TRAIN_DATASET.invokeExact(network, dataset, 1, LEARNING_RATE);
+    }
+    
+    @Benchmark
+    public void trainEpochBatchedDataset() throws Throwable {
+        Library.TRAIN_DATASET_BATCHED.invokeExact(network, dataset, 1, LEARNING_RATE, BATCH_SIZE);
+    }
+}
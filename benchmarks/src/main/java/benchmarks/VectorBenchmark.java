@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar fallbacks in {@code MathUtilities} with their Vector API counterparts in {@code VectorMath}
+ * on 784-element vectors, the width of a flattened MNIST image. Each kernel has one benchmark per implementation, so
+ * the speedup is the ratio of the two scores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class VectorBenchmark {
+    private double[] vectorA;
+    private double[] vectorB;
+    private double[] result;
+    
+    @Setup
+    public void setUp() {
+        vectorA = SyntheticMnist.images(1, 42)[0];
+        vectorB = SyntheticMnist.images(1, 43)[0];
+        result = new double[SyntheticMnist.INPUT_SIZE];
+    }
+    
+    @Benchmark
+    public double dotProductScalar() throws Throwable {
+        return (double) Library.DOT_PRODUCT_SCALAR.invokeExact(vectorA, 0, vectorB, 0, SyntheticMnist.INPUT_SIZE);
+    }
+    
+    @Benchmark
+    public double dotProductVector() throws Throwable {
+        return (double) Library.DOT_PRODUCT_VECTOR.invokeExact(vectorA, 0, vectorB, 0, SyntheticMnist.INPUT_SIZE);
+    }
+    
+    @Benchmark
+    public double[] addScalar() throws Throwable {
+        Library.ADD_SCALAR.invokeExact(vectorA, vectorB, result);
+        return result;
+    }
+    
+    @Benchmark
+    public double[] addVector() throws Throwable {
+        Library.ADD_VECTOR.invokeExact(vectorA, vectorB, result);
+        return result;
+    }
+    
+    @Benchmark
+    public double[] subtractScalar() throws Throwable {
+        Library.SUBTRACT_SCALAR.invokeExact(vectorA, vectorB, result);
+        return result;
+    }
+    
+    @Benchmark
+    public double[] subtractVector() throws Throwable {
+        Library.SUBTRACT_VECTOR.invokeExact(vectorA, vectorB, result);
+        return result;
+    }
+    
+    @Benchmark
+    public double distanceScalar() throws Throwable {
+        return (double) Library.DISTANCE_SCALAR.invokeExact(vectorA, vectorB);
+    }
+    
+    @Benchmark
+    public double distanceVector() throws Throwable {
+        return Math.sqrt((double) Library.SQUARED_DISTANCE_VECTOR.invokeExact(vectorA, vectorB));
+    }
+}
@@ -19,4 +19,35 @@ public interface ActivationFunction {
      * @return The derivative of the activation function.
      */
     double derive(double x);
+    
+    /**
+     * Applies the activation function to a range of values, {@code outputs[i] = activate(inputs[i])} for every
+     * index from {@code from} inclusive to {@code to} exclusive. The functions of this library override it with
+     * SIMD kernels, so a whole row or matrix costs one call instead of one virtual call per element.
+     *
+     * @param inputs Array containing the input values.
+     * @param outputs Array receiving the outputs; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    default void activate(double[] inputs, double[] outputs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            outputs[i] = activate(inputs[i]);
+        }
+    }
+    
+    /**
+     * Computes the derivative of the activation function over a range of values,
+     * {@code derivatives[i] = derive(inputs[i])} for every index from {@code from} inclusive to {@code to} exclusive.
+     *
+     * @param inputs Array containing the points at which the derivative is evaluated.
+     * @param derivatives Array receiving the derivatives; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    default void deriveInto(double[] inputs, double[] derivatives, int from, int to) {
+        for (int i = from; i < to; i++) {
+            derivatives[i] = derive(inputs[i]);
+        }
+    }
 }
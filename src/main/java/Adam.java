@@ -0,0 +1,84 @@
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Adam, which keeps running estimates of the mean and the uncentered variance of every gradient and moves each
+ * parameter by the bias-corrected mean divided by the root of the bias-corrected variance. Both moments are updated
+ * in the same pass as the parameter.
+ */
+public class Adam implements Optimizer {
+    private final double beta1;
+    private final double beta2;
+    private final double epsilon;
+    
+    /**
+     * Constructs Adam with the usual hyperparameters: beta1 = 0.9, beta2 = 0.999 and epsilon = 1e-8.
+     */
+    public Adam() {
+        this(0.9, 0.999, 1e-8);
+    }
+    
+    /**
+     * Constructs Adam with the given hyperparameters.
+     *
+     * @param beta1 The decay rate of the mean estimate, in [0, 1).
+     * @param beta2 The decay rate of the variance estimate, in [0, 1).
+     * @param epsilon The value added to the root of the variance to avoid division by zero.
+     */
+    public Adam(double beta1, double beta2, double epsilon) {
+        if (beta1 < 0 || beta1 >= 1 || beta2 < 0 || beta2 >= 1 || epsilon <= 0) {
+            throw new IllegalArgumentException("Betas must be in [0, 1) and epsilon must be positive.");
+        }
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+    
+    @Override
+    public int stateSize() {
+        return 2;
+    }
+    
+    @Override
+    public void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                       double[][] state, int stateOffset, int length, double gradientScale, double learningRate,
+                       long step) {
+        update(parameters, parameterOffset, gradients, gradientOffset, state, stateOffset, length, gradientScale,
+               learningRate, step, 0);
+    }
+    
+    /**
+     * Runs the fused Adam update, additionally shrinking every parameter by {@code learningRate * weightDecay}
+     * times its value.
+     */
+    protected void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                          double[][] state, int stateOffset, int length, double gradientScale, double learningRate,
+                          long step, double weightDecay) {
+        double stepSize = learningRate / (1 - Math.pow(beta1, step));
+        double varianceCorrection = 1 / (1 - Math.pow(beta2, step));
+        MathUtilities.adamUpdate(parameters, parameterOffset, gradients, gradientOffset, state[0], state[1],
+                                 stateOffset, length, gradientScale, stepSize, beta1, beta2, varianceCorrection,
+                                 epsilon, 1 - learningRate * weightDecay);
+    }
+    
+    @Override
+    public void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients, long gradientOffset,
+                       MemorySegment[] state, long stateOffset, int length, double gradientScale,
+                       double learningRate, long step) {
+        update(parameters, parameterOffset, gradients, gradientOffset, state, stateOffset, length, gradientScale,
+               learningRate, step, 0);
+    }
+    
+    /**
+     * Runs the fused Adam update on off-heap parameters, additionally shrinking every parameter by
+     * {@code learningRate * weightDecay} times its value.
+     */
+    protected void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients,
+                          long gradientOffset, MemorySegment[] state, long stateOffset, int length,
+                          double gradientScale, double learningRate, long step, double weightDecay) {
+        double stepSize = learningRate / (1 - Math.pow(beta1, step));
+        double varianceCorrection = 1 / (1 - Math.pow(beta2, step));
+        MathUtilities.adamUpdate(parameters, parameterOffset, gradients, gradientOffset, state[0], state[1],
+                                 stateOffset, length, gradientScale, stepSize, beta1, beta2, varianceCorrection,
+                                 epsilon, 1 - learningRate * weightDecay);
+    }
+}
@@ -0,0 +1,49 @@
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Adam with decoupled weight decay. Instead of adding an L2 penalty to the gradients, where Adam's scaling would
+ * weaken it for parameters with large gradients, every parameter is shrunk by {@code learningRate * weightDecay}
+ * times its value in the same pass as the Adam step.
+ */
+public class AdamW extends Adam {
+    private final double weightDecay;
+    
+    /**
+     * Constructs AdamW with the usual Adam hyperparameters and a weight decay of 0.01.
+     */
+    public AdamW() {
+        this(0.9, 0.999, 1e-8, 0.01);
+    }
+    
+    /**
+     * Constructs AdamW with the given hyperparameters.
+     *
+     * @param beta1 The decay rate of the mean estimate, in [0, 1).
+     * @param beta2 The decay rate of the variance estimate, in [0, 1).
+     * @param epsilon The value added to the root of the variance to avoid division by zero.
+     * @param weightDecay The weight decay coefficient, which is multiplied by the learning rate.
+     */
+    public AdamW(double beta1, double beta2, double epsilon, double weightDecay) {
+        super(beta1, beta2, epsilon);
+        if (weightDecay < 0) {
+            throw new IllegalArgumentException("Weight decay must not be negative.");
+        }
+        this.weightDecay = weightDecay;
+    }
+    
+    @Override
+    public void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                       double[][] state, int stateOffset, int length, double gradientScale, double learningRate,
+                       long step) {
+        update(parameters, parameterOffset, gradients, gradientOffset, state, stateOffset, length, gradientScale,
+               learningRate, step, weightDecay);
+    }
+    
+    @Override
+    public void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients, long gradientOffset,
+                       MemorySegment[] state, long stateOffset, int length, double gradientScale,
+                       double learningRate, long step) {
+        update(parameters, parameterOffset, gradients, gradientOffset, state, stateOffset, length, gradientScale,
+               learningRate, step, weightDecay);
+    }
+}
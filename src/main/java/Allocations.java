@@ -0,0 +1,29 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the number of heap bytes the current thread has allocated, for the allocation figures of
+ * {@link EpochMetrics}. Reads return zero when the JVM does not support or has disabled the measurement.
+ */
+final class Allocations {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+    
+    private Allocations() {
+    }
+    
+    /**
+     * Returns the total number of bytes allocated by the calling thread so far.
+     *
+     * @return The allocated bytes, or zero if they cannot be measured.
+     */
+    static long currentThread() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+    
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking predictions for a {@link NeuralNetwork}, served by a fixed pool of inference workers from a bounded
+ * submission queue. Every worker groups the predictions waiting in the queue, up to maxBatchSize at a time, into one
+ * call of {@link NeuralNetwork#predict(double[][])}. Once the queue is full, new predictions are turned away
+ * according to an {@link OverloadPolicy} instead of waiting behind an ever longer queue, so the latency of accepted
+ * predictions stays bounded. Queue depth, wait and service times are available from {@link #getMetrics()}.
+ * <p>
+ * Futures are completed on the worker threads. Dependent stages added with the non-async methods of
+ * {@link CompletableFuture} also run there and delay the next batch, so expensive continuations should use the
+ * async variants.
+ */
+public class AsyncPredictor implements AutoCloseable {
+    private final MicroBatcher batcher;
+    
+    /**
+     * Constructs a predictor whose workers batch whatever is already queued without waiting for more.
+     *
+     * @param network The network to predict with; it must not be trained while the predictor is open.
+     * @param workers The number of inference worker threads.
+     * @param queueCapacity The largest number of predictions waiting in the queue.
+     * @param policy What to do with a prediction submitted while the queue is full.
+     * @throws IllegalArgumentException if the number of workers or the queue capacity is not positive.
+     */
+    public AsyncPredictor(NeuralNetwork network, int workers, int queueCapacity, OverloadPolicy policy) {
+        this(network, workers, queueCapacity, policy, 32, Duration.ZERO);
+    }
+    
+    /**
+     * Constructs a predictor.
+     *
+     * @param network The network to predict with; it must not be trained while the predictor is open.
+     * @param workers The number of inference worker threads.
+     * @param queueCapacity The largest number of predictions waiting in the queue.
+     * @param policy What to do with a prediction submitted while the queue is full.
+     * @param maxBatchSize The largest number of predictions a worker runs as one batch.
+     * @param maxWait The longest time a worker holding a partial batch waits for more predictions; zero runs the
+     *                predictions already queued at once.
+     * @throws IllegalArgumentException if the number of workers, the queue capacity or the batch size is not positive
+     *                                  or the wait is negative.
+     */
+    public AsyncPredictor(NeuralNetwork network, int workers, int queueCapacity, OverloadPolicy policy,
+                          int maxBatchSize, Duration maxWait) {
+        this.batcher = new MicroBatcher(network, maxBatchSize, maxWait, queueCapacity, workers, policy);
+    }
+    
+    /**
+     * Submits a prediction for a single input without blocking.
+     *
+     * @param inputs The input values; must not be modified until the future completes.
+     * @return A future completed with the output values. It completes exceptionally with a
+     *         {@link java.util.concurrent.RejectedExecutionException} if the prediction is rejected or dropped
+     *         because the queue is full or the predictor is closed.
+     * @throws IllegalArgumentException if the input size does not match the network.
+     */
+    public CompletableFuture<double[]> predictAsync(double[] inputs) {
+        return batcher.submit(inputs);
+    }
+    
+    /**
+     * Returns the current queue depth and the counters accumulated since the predictor was created.
+     *
+     * @return A snapshot of the metrics.
+     */
+    public PredictorMetrics getMetrics() {
+        return batcher.metrics();
+    }
+    
+    /**
+     * Stops the workers after the batches in progress, failing the predictions still queued with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        batcher.close();
+    }
+}
@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one minibatch of a {@link NeuralNetwork}: the gradients of every shard, their sum
+ * and the optimizer step.
+ */
+@Name("neuralnetwork.Batch")
+@Label("Batch")
+@Category({"Neural Network", "Training"})
+@Description("One minibatch step")
+final class BatchEvent extends Event {
+    @Label("Epoch")
+    int epoch;
+    
+    @Label("Batch")
+    int batch;
+    
+    @Label("Batch Size")
+    int batchSize;
+    
+    @Label("Average Loss")
+    double loss;
+    
+    /**
+     * Ends the event and records it if the event is enabled and over its threshold.
+     *
+     * @param metrics The metrics of the finished batch.
+     */
+    void commit(BatchMetrics metrics) {
+        if (shouldCommit()) {
+            epoch = metrics.epoch();
+            batch = metrics.batch();
+            batchSize = metrics.samples();
+            loss = metrics.averageLoss();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Metrics of one minibatch, reported to {@link TrainingListener#batchFinished(BatchMetrics)}.
+ * The phase times are summed over all workers that shared the batch.
+ *
+ * @param epoch The number of the epoch, starting at 1.
+ * @param batch The number of the batch within the epoch, starting at 1.
+ * @param batches The number of batches in the epoch.
+ * @param samples The number of examples in the batch.
+ * @param averageLoss The loss averaged over the examples of the batch, before the update.
+ * @param durationNanos The wall-clock duration of the batch in nanoseconds.
+ * @param forwardNanos The time spent in forward passes and the loss, in nanoseconds.
+ * @param backwardNanos The time spent in back-propagation, in nanoseconds.
+ * @param updateNanos The time spent summing the gradients of workers and applying the optimizer, in nanoseconds.
+ */
+public record BatchMetrics(int epoch, int batch, int batches, int samples, double averageLoss, long durationNanos,
+                           long forwardNanos, long backwardNanos, long updateNanos) {
+    
+    /**
+     * Returns the training throughput of the batch.
+     *
+     * @return The number of examples processed per second of wall-clock time.
+     */
+    public double samplesPerSecond() {
+        return samples / (durationNanos / 1e9);
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * The most probable classes for one input, returned by {@link NeuralNetwork#topK(double[], int)}.
+ *
+ * @param classes The indices of the classes in descending order of probability, ties resolved to the lower index.
+ * @param probabilities The softmax probability of each class, in the same order.
+ */
+public record ClassRanking(int[] classes, double[] probabilities) {
+}
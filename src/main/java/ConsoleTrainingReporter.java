@@ -0,0 +1,33 @@
+import java.io.PrintStream;
+
+/**
+ * Prints one line per epoch with the loss, the throughput, the time spent in each training phase and the bytes
+ * allocated. Every {@link NeuralNetwork} reports to one of these on standard output until its listeners are changed.
+ */
+public class ConsoleTrainingReporter implements TrainingListener {
+    private final PrintStream out;
+    
+    /**
+     * Constructs a reporter that prints to standard output.
+     */
+    public ConsoleTrainingReporter() {
+        this(System.out);
+    }
+    
+    /**
+     * Constructs a reporter that prints to the given stream.
+     *
+     * @param out The stream receiving one line per epoch.
+     */
+    public ConsoleTrainingReporter(PrintStream out) {
+        this.out = out;
+    }
+    
+    @Override
+    public void epochFinished(EpochMetrics metrics) {
+        out.println("Epoch " + metrics.epoch() + "/" + metrics.epochs() + ": Loss = " + metrics.averageLoss() + ", "
+                    + (long) metrics.samplesPerSecond() + " samples/s, forward " + metrics.forwardNanos() / 1_000_000
+                    + " ms, backward " + metrics.backwardNanos() / 1_000_000 + " ms, update "
+                    + metrics.updateNanos() / 1_000_000 + " ms, " + metrics.allocatedBytes() + " bytes allocated");
+    }
+}
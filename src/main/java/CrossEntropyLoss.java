@@ -73,4 +73,22 @@ public class CrossEntropyLoss implements LossFunction {
         return derivatives;
     }
     
+    /**
+     * Calculates the cross-entropy loss of the softmax of a row of scores together with its gradient with respect to
+     * the scores, {@code p - y}. The log-sum-exp of the row is computed once, so the probabilities are never
+     * materialized separately and the loss stays finite even when a probability underflows to zero.
+     *
+     * @param scores Array containing the scores of the output layer.
+     * @param scoresOffset Index of the first score of the row.
+     * @param target An array of actual target probabilities, typically one-hot encoded.
+     * @param errors Array receiving the gradient of the loss with respect to the scores.
+     * @param errorsOffset Index of the first gradient entry of the row.
+     * @param length The number of classes.
+     * @return The cross-entropy loss of the row.
+     */
+    @Override
+    public double calculateSoftmaxLoss(double[] scores, int scoresOffset, double[] target, double[] errors,
+                                       int errorsOffset, int length) {
+        return MathUtilities.softmaxCrossEntropy(scores, scoresOffset, target, errors, errorsOffset, length);
+    }
 }
@@ -0,0 +1,249 @@
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * A set of training examples stored in one contiguous array of doubles, one row per example holding its input values
+ * followed by its expected output values. Compared with an array of row arrays this saves an object header and a
+ * reference per row, keeps neighbouring examples next to each other in memory and lets the training loop gather a
+ * minibatch with plain array copies.
+ * <p>
+ * The examples are visited through an order that {@link #shuffle(Random)} permutes, so shuffling moves only one int
+ * per example and never touches the stored values. Examples are addressed by their position in the current order;
+ * {@link #inputs(int)}, {@link #expectedOutputs(int)} and {@link #batch(int, int)} return views of the storage
+ * without copying it.
+ */
+public final class Dataset {
+    private final int size;
+    private final int inputSize;
+    private final int outputSize;
+    private final int stride;
+    private final double[] data;
+    private final int[] order;
+    
+    /**
+     * Constructs an empty dataset whose examples are filled in with {@link #set(int, double[], double[])}, so that a
+     * large dataset never needs to exist as an array of row arrays.
+     *
+     * @param size The number of examples.
+     * @param inputSize The number of input values of every example.
+     * @param outputSize The number of expected output values of every example.
+     * @throws IllegalArgumentException if a size is not positive or the examples do not fit in one array.
+     */
+    public Dataset(int size, int inputSize, int outputSize) {
+        if (size < 1 || inputSize < 1 || outputSize < 1) {
+            throw new IllegalArgumentException("Dataset sizes must be positive.");
+        }
+        long length = (long) size * (inputSize + outputSize);
+        if (inputSize + outputSize < 0 || length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Dataset is too large for a single array.");
+        }
+        this.size = size;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.stride = inputSize + outputSize;
+        this.data = new double[(int) length];
+        this.order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+    }
+    
+    /**
+     * Constructs a dataset holding a copy of the given examples, in their given order.
+     *
+     * @param inputs The input values of every example.
+     * @param expectedOutputs The expected output values of every example.
+     * @throws IllegalArgumentException if the arrays are empty, differ in length or hold rows of different sizes.
+     */
+    public Dataset(double[][] inputs, double[][] expectedOutputs) {
+        this(checkedLength(inputs, expectedOutputs), inputs[0].length, expectedOutputs[0].length);
+        for (int i = 0; i < size; i++) {
+            set(i, inputs[i], expectedOutputs[i]);
+        }
+    }
+    
+    private static int checkedLength(double[][] inputs, double[][] expectedOutputs) {
+        if (inputs.length != expectedOutputs.length) {
+            throw new IllegalArgumentException("Inputs and outputs must have the same length");
+        }
+        if (inputs.length == 0) {
+            throw new IllegalArgumentException("Dataset sizes must be positive.");
+        }
+        return inputs.length;
+    }
+    
+    /**
+     * Stores one example.
+     *
+     * @param index The index of the example in the order it was added, regardless of any shuffling since.
+     * @param inputs The input values.
+     * @param expectedOutputs The expected output values.
+     * @throws IndexOutOfBoundsException if the index is not within this dataset.
+     * @throws IllegalArgumentException if the values do not match the sizes of this dataset.
+     */
+    public void set(int index, double[] inputs, double[] expectedOutputs) {
+        Objects.checkIndex(index, size);
+        if (inputs.length != inputSize || expectedOutputs.length != outputSize) {
+            throw new IllegalArgumentException("Example sizes must match the dataset.");
+        }
+        System.arraycopy(inputs, 0, data, index * stride, inputSize);
+        System.arraycopy(expectedOutputs, 0, data, index * stride + inputSize, outputSize);
+    }
+    
+    /**
+     * Shuffles the order in which the examples are visited with the Fisher-Yates algorithm. The stored values are
+     * not moved.
+     *
+     * @param random The source of randomness.
+     */
+    public void shuffle(Random random) {
+        for (int i = size - 1; i > 0; i--) {
+            int index = random.nextInt(i + 1);
+            int temp = order[index];
+            order[index] = order[i];
+            order[i] = temp;
+        }
+    }
+    
+    /**
+     * Returns a view of the input values of the example at a position of the current order.
+     *
+     * @param position The position of the example.
+     * @return A read-write segment of {@link ValueLayout#JAVA_DOUBLE} values backed by this dataset.
+     */
+    public MemorySegment inputs(int position) {
+        return MemorySegment.ofArray(data).asSlice((long) inputOffset(position) * Double.BYTES, inputSize * Double.BYTES);
+    }
+    
+    /**
+     * Returns a view of the expected output values of the example at a position of the current order.
+     *
+     * @param position The position of the example.
+     * @return A read-write segment of {@link ValueLayout#JAVA_DOUBLE} values backed by this dataset.
+     */
+    public MemorySegment expectedOutputs(int position) {
+        return MemorySegment.ofArray(data).asSlice((long) outputOffset(position) * Double.BYTES,
+                                                   outputSize * Double.BYTES);
+    }
+    
+    /**
+     * Returns a view of a range of positions of the current order. The view follows later shuffles.
+     *
+     * @param start The first position, inclusive.
+     * @param end The last position, exclusive.
+     * @return The batch of examples.
+     * @throws IndexOutOfBoundsException if the range is not within this dataset.
+     */
+    public Batch batch(int start, int end) {
+        return new Batch(this, start, end);
+    }
+    
+    /**
+     * Returns the number of examples.
+     *
+     * @return The size of this dataset.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of input values of every example.
+     *
+     * @return The input size.
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+    
+    /**
+     * Returns the number of expected output values of every example.
+     *
+     * @return The output size.
+     */
+    public int getOutputSize() {
+        return outputSize;
+    }
+    
+    /**
+     * Returns the array holding every example, one row of input and expected output values after another.
+     *
+     * @return The backing array.
+     */
+    double[] data() {
+        return data;
+    }
+    
+    /**
+     * Returns the index in {@link #data()} of the first input value of the example at a position of the current
+     * order.
+     *
+     * @param position The position of the example.
+     * @return The offset of its input values.
+     */
+    int inputOffset(int position) {
+        return order[position] * stride;
+    }
+    
+    /**
+     * Returns the index in {@link #data()} of the first expected output value of the example at a position of the
+     * current order.
+     *
+     * @param position The position of the example.
+     * @return The offset of its expected output values.
+     */
+    int outputOffset(int position) {
+        return order[position] * stride + inputSize;
+    }
+    
+    /**
+     * A view of consecutive positions of a dataset, such as one minibatch.
+     *
+     * @param dataset The dataset viewed.
+     * @param start The first position, inclusive.
+     * @param end The last position, exclusive.
+     */
+    public record Batch(Dataset dataset, int start, int end) {
+        /**
+         * Constructs a view of a range of positions of a dataset.
+         *
+         * @throws IndexOutOfBoundsException if the range is not within the dataset.
+         */
+        public Batch {
+            if (start < 0 || end > dataset.size || start > end) {
+                throw new IndexOutOfBoundsException("Batch range must lie within the dataset.");
+            }
+        }
+        
+        /**
+         * Returns the number of examples in this batch.
+         *
+         * @return The size of this batch.
+         */
+        public int size() {
+            return end - start;
+        }
+        
+        /**
+         * Returns a view of the input values of an example of this batch.
+         *
+         * @param row The index of the example within this batch.
+         * @return A segment backed by the dataset.
+         */
+        public MemorySegment inputs(int row) {
+            return dataset.inputs(start + Objects.checkIndex(row, size()));
+        }
+        
+        /**
+         * Returns a view of the expected output values of an example of this batch.
+         *
+         * @param row The index of the example within this batch.
+         * @return A segment backed by the dataset.
+         */
+        public MemorySegment expectedOutputs(int row) {
+            return dataset.expectedOutputs(start + Objects.checkIndex(row, size()));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one training epoch of a {@link NeuralNetwork}, shuffle included.
+ */
+@Name("neuralnetwork.Epoch")
+@Label("Epoch")
+@Category({"Neural Network", "Training"})
+@Description("One pass over the training data")
+final class EpochEvent extends Event {
+    @Label("Epoch")
+    int epoch;
+    
+    @Label("Samples")
+    int samples;
+    
+    @Label("Average Loss")
+    double loss;
+    
+    @Label("Allocated")
+    @Description("Heap bytes allocated by the training threads, or zero if the JVM cannot measure them")
+    @DataAmount
+    long allocatedBytes;
+    
+    /**
+     * Ends the event and records it with the metrics of the epoch if the event is enabled and over its threshold.
+     *
+     * @param metrics The metrics of the finished epoch.
+     */
+    void commit(EpochMetrics metrics) {
+        if (shouldCommit()) {
+            epoch = metrics.epoch();
+            samples = metrics.samples();
+            loss = metrics.averageLoss();
+            allocatedBytes = metrics.allocatedBytes();
+            commit();
+        }
+    }
+}
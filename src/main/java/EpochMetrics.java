@@ -0,0 +1,29 @@
+/**
+ * Metrics of one training epoch, reported to {@link TrainingListener#epochFinished(EpochMetrics)}.
+ * The phase times are summed over all threads that trained, so with several workers their sum can exceed the
+ * wall-clock duration.
+ *
+ * @param epoch The number of the epoch, starting at 1.
+ * @param epochs The number of epochs of the training run.
+ * @param samples The number of examples processed in the epoch.
+ * @param averageLoss The loss averaged over the examples of the epoch.
+ * @param durationNanos The wall-clock duration of the epoch in nanoseconds, excluding the shuffle.
+ * @param forwardNanos The time spent in forward passes and the loss, in nanoseconds.
+ * @param backwardNanos The time spent in back-propagation, in nanoseconds. Per-example and Hogwild training update
+ *                      the weights while back-propagating, so for them this includes the updates.
+ * @param updateNanos The time spent summing the gradients of workers and applying the optimizer, in nanoseconds.
+ * @param allocatedBytes The heap bytes allocated by the training threads during the epoch, or zero if the JVM does
+ *                       not support measuring them.
+ */
+public record EpochMetrics(int epoch, int epochs, int samples, double averageLoss, long durationNanos,
+                           long forwardNanos, long backwardNanos, long updateNanos, long allocatedBytes) {
+    
+    /**
+     * Returns the training throughput of the epoch.
+     *
+     * @return The number of examples processed per second of wall-clock time.
+     */
+    public double samplesPerSecond() {
+        return samples / (durationNanos / 1e9);
+    }
+}
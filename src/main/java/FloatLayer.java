@@ -0,0 +1,277 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Single-precision counterpart of {@link Layer}, storing a dense row-major float weight matrix and a float bias
+ * vector. Halving the element size halves the memory traffic of every pass and doubles the number of lanes in
+ * each SIMD register. Activation functions are evaluated in double precision through their bulk methods, one
+ * widened row block at a time, and rounded once per element.
+ * As with {@link Layer}, the passes work on caller-supplied row-major buffers and never record state on the layer,
+ * so a {@link FloatTrainingWorkspace} holds the weighted sums that back-propagation takes the derivatives at.
+ */
+public class FloatLayer {
+    // Rows of the weight matrix kept in cache while every row of a batch is multiplied with them
+    private static final int BLOCK_ROWS = 64;
+    private final int layerSize;
+    private final int inputSize;
+    private final float[] weights;
+    private final float[] biases;
+    private final ActivationFunction activationFunction;
+    
+    /**
+     * Constructs a FloatLayer with a specified number of neurons, input size, and activation function.
+     *
+     * @param layerSize The number of neurons in the layer.
+     * @param inputSize The size of the input received by each neuron.
+     * @param activationFunction The activation function to be used by all neurons in the layer.
+     */
+    public FloatLayer(int layerSize, int inputSize, ActivationFunction activationFunction) {
+        this.layerSize = layerSize;
+        this.inputSize = inputSize;
+        this.weights = new float[layerSize * inputSize];
+        this.biases = new float[layerSize];
+        this.activationFunction = activationFunction;
+        Random randomNumberGenerator = new Random();
+        for (int i = 0; i < weights.length; i++) {
+            // Initialize weights to random float between -0.05 and 0.05
+            weights[i] = randomNumberGenerator.nextFloat() * 0.1f - 0.05f;
+        }
+    }
+    
+    /**
+     * Constructs a FloatLayer holding the parameters of a double-precision layer rounded to float.
+     *
+     * @param layer The layer whose weights, biases and activation function are copied.
+     */
+    public FloatLayer(Layer layer) {
+        this.layerSize = layer.getLayerSize();
+        this.inputSize = layer.getInputSize();
+        this.weights = MathUtilities.toFloat(layer.getWeights());
+        this.biases = MathUtilities.toFloat(layer.getBiases());
+        this.activationFunction = layer.getActivationFunction();
+    }
+    
+    /**
+     * Performs feed-forward operation for a single set of inputs through this layer.
+     *
+     * @param inputs An array of input values to be processed by the layer.
+     * @return An array of output values from the layer.
+     */
+    protected float[] feedForward(float[] inputs) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        float[] outputs = new float[layerSize];
+        feedForward(inputs, 1, null, outputs, new double[layerSize]);
+        return outputs;
+    }
+    
+    /**
+     * Performs feed-forward operation for a batch of inputs through this layer.
+     *
+     * @param inputs A 2D array of input values to be processed by the layer in batches.
+     * @return A 2D array of output values from the layer.
+     */
+    protected float[][] feedForward(float[][] inputs) {
+        if (inputs[0].length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        float[] outputs = new float[inputs.length * layerSize];
+        feedForward(MathUtilities.flatten(inputs), inputs.length, null, outputs, new double[outputs.length]);
+        return MathUtilities.reshape(outputs, inputs.length, layerSize);
+    }
+    
+    /**
+     * Performs feed-forward operation for a batch of inputs stored as one row-major matrix, writing the weighted sums
+     * and the outputs into caller-supplied row-major buffers. Each block of weight rows is multiplied with every
+     * input row while it stays in cache.
+     *
+     * @param inputs The batchSize x inputSize input matrix in row-major order.
+     * @param batchSize The number of inputs in the batch.
+     * @param preActivations The buffer receiving the batchSize x layerSize matrix of weighted sums before the
+     *                       activation function, or null if they are not needed.
+     * @param outputs The buffer receiving the batchSize x layerSize output matrix in row-major order.
+     * @param scratch A buffer of at least batchSize x layerSize doubles the activation function is evaluated in.
+     */
+    void feedForward(float[] inputs, int batchSize, float[] preActivations, float[] outputs, double[] scratch) {
+        for (int block = 0; block < layerSize; block += BLOCK_ROWS) {
+            int blockEnd = Math.min(block + BLOCK_ROWS, layerSize);
+            for (int i = 0; i < batchSize; i++) {
+                for (int j = block; j < blockEnd; j++) {
+                    outputs[i * layerSize + j] = MathUtilities.dotProduct(weights, j * inputSize, inputs,
+                                                                          i * inputSize, inputSize) + biases[j];
+                }
+            }
+        }
+        int length = batchSize * layerSize;
+        if (preActivations != null) {
+            System.arraycopy(outputs, 0, preActivations, 0, length);
+        }
+        widen(outputs, scratch, length);
+        activationFunction.activate(scratch, scratch, 0, length);
+        narrow(scratch, outputs, length);
+    }
+    
+    /**
+     * Computes the summed weight and bias gradients of a batch without changing the layer. Every error is multiplied
+     * by the derivative of the activation function at its own example's weighted sum.
+     *
+     * @param errors The batchSize x layerSize matrix of error terms from the next layer in row-major order;
+     *               it is overwritten with the deltas of this layer.
+     * @param preActivations The batchSize x layerSize matrix of weighted sums of this layer for the same rows.
+     * @param inputs The batchSize x inputSize matrix of inputs to this layer in row-major order.
+     * @param batchSize The number of rows in the batch.
+     * @param weightGradients The buffer receiving the layerSize x inputSize weight gradient, summed over the batch.
+     * @param biasGradients The buffer receiving the bias gradient, summed over the batch.
+     * @param previousLayerErrors The buffer receiving the batchSize x inputSize errors for the previous layer,
+     *                            or null if there is no previous layer.
+     * @param scratch A buffer of at least batchSize x layerSize doubles the derivatives are evaluated in.
+     */
+    void computeGradients(float[] errors, float[] preActivations, float[] inputs, int batchSize,
+                          float[] weightGradients, float[] biasGradients, float[] previousLayerErrors,
+                          double[] scratch) {
+        int length = batchSize * layerSize;
+        widen(preActivations, scratch, length);
+        activationFunction.deriveInto(scratch, scratch, 0, length);
+        Arrays.fill(biasGradients, 0);
+        for (int i = 0; i < length; i++) {
+            float delta = errors[i] * (float) scratch[i];
+            errors[i] = delta;
+            biasGradients[i % layerSize] += delta;
+        }
+        Arrays.fill(weightGradients, 0);
+        if (previousLayerErrors != null) {
+            Arrays.fill(previousLayerErrors, 0, batchSize * inputSize, 0);
+        }
+        for (int k = 0; k < layerSize; k++) {
+            for (int i = 0; i < batchSize; i++) {
+                float delta = errors[i * layerSize + k];
+                if (delta == 0) {
+                    continue;
+                }
+                MathUtilities.addScaled(weightGradients, k * inputSize, inputs, i * inputSize, delta, inputSize);
+                if (previousLayerErrors != null) {
+                    MathUtilities.addScaled(previousLayerErrors, i * inputSize, weights, k * inputSize, delta,
+                                            inputSize);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Takes a gradient descent step, subtracting the scaled gradients from the weights and biases.
+     *
+     * @param weightGradients The layerSize x inputSize weight gradient in row-major order.
+     * @param biasGradients The bias gradient, one entry per neuron.
+     * @param scale The factor applied to the gradients, typically the learning rate divided by the batch size.
+     */
+    void applyGradients(float[] weightGradients, float[] biasGradients, float scale) {
+        MathUtilities.addScaled(weights, 0, weightGradients, 0, -scale, weights.length);
+        MathUtilities.addScaled(biases, 0, biasGradients, 0, -scale, layerSize);
+    }
+    
+    /**
+     * Performs back-propagation for a single example, updating the layer directly. Each weight row is updated and
+     * then propagated to the previous layer's errors while it is still in cache.
+     *
+     * @param errors An array of error terms from the next layer; it is overwritten with the deltas of this layer.
+     * @param inputs An array of input values to the layer.
+     * @param preActivations The weighted sums of this layer for the same example.
+     * @param learningRate The learning rate for weight updates.
+     * @param previousLayerErrors The array receiving the error terms for the previous layer, or null if there is no
+     *                            previous layer.
+     * @param scratch A buffer of at least layerSize doubles the derivatives are evaluated in.
+     */
+    void backPropagate(float[] errors, float[] inputs, float[] preActivations, float learningRate,
+                       float[] previousLayerErrors, double[] scratch) {
+        if (previousLayerErrors != null) {
+            Arrays.fill(previousLayerErrors, 0, inputSize, 0);
+        }
+        widen(preActivations, scratch, layerSize);
+        activationFunction.deriveInto(scratch, scratch, 0, layerSize);
+        for (int j = 0; j < layerSize; j++) {
+            float delta = errors[j] * (float) scratch[j];
+            errors[j] = delta;
+            if (delta == 0) {
+                continue;
+            }
+            float step = learningRate * delta;
+            MathUtilities.addScaled(weights, j * inputSize, inputs, 0, -step, inputSize);
+            if (previousLayerErrors != null) {
+                MathUtilities.addScaled(previousLayerErrors, 0, weights, j * inputSize, delta, inputSize);
+            }
+            biases[j] -= step;
+        }
+    }
+    
+    /**
+     * Returns the number of neurons in this layer.
+     *
+     * @return The number of neurons, which is also the number of rows of the weight matrix.
+     */
+    public int getLayerSize() {
+        return layerSize;
+    }
+    
+    /**
+     * Returns the size of the input received by each neuron of this layer.
+     *
+     * @return The number of inputs, which is also the number of columns of the weight matrix.
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+    
+    /**
+     * Returns a copy of the weight matrix of this layer in row-major order. As with {@link Layer#getWeights()},
+     * writes to the returned array do not reach the layer; use {@link #setWeights(float[])} to replace the weights.
+     *
+     * @return A new array holding the weights of this layer.
+     */
+    public float[] getWeights() {
+        return weights.clone();
+    }
+    
+    /**
+     * Replaces the whole weight matrix of this layer.
+     *
+     * @param source The layerSize x inputSize new weights in row-major order, laid out like {@link #getWeights()}.
+     * @throws IllegalArgumentException if the array does not hold one weight per neuron and input.
+     */
+    public void setWeights(float[] source) {
+        if (source.length != weights.length) {
+            throw new IllegalArgumentException("Weight count must match the layer dimensions.");
+        }
+        System.arraycopy(source, 0, weights, 0, source.length);
+    }
+    
+    /**
+     * Returns the bias vector of this layer.
+     *
+     * @return The backing bias array of this layer, one entry per neuron.
+     */
+    public float[] getBiases() {
+        return biases;
+    }
+    
+    /**
+     * Returns the activation function used by this layer.
+     *
+     * @return The activation function applied by every neuron of this layer.
+     */
+    public ActivationFunction getActivationFunction() {
+        return activationFunction;
+    }
+    
+    private static void widen(float[] source, double[] target, int length) {
+        for (int i = 0; i < length; i++) {
+            target[i] = source[i];
+        }
+    }
+    
+    private static void narrow(double[] source, float[] target, int length) {
+        for (int i = 0; i < length; i++) {
+            target[i] = (float) source[i];
+        }
+    }
+}
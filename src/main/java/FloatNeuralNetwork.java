@@ -0,0 +1,292 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single-precision variant of {@link NeuralNetwork}. Weights, biases, activations, inputs and outputs are floats,
+ * which halves the memory held by the model and its activations and doubles the width of the vectorized kernels.
+ * The output of the last layer is small, so the loss function is evaluated on a double-precision copy of it.
+ * Training reuses the {@link Dataset} path of the double-precision network through a {@link FloatTrainingWorkspace}
+ * and reports its progress to the same {@link TrainingListener}s.
+ */
+public class FloatNeuralNetwork {
+    private final FloatLayer[] layers;
+    private final Random random = new Random();
+    private final List<TrainingListener> listeners = new CopyOnWriteArrayList<>(List.of(new ConsoleTrainingReporter()));
+    private final LossFunction lossFunction;
+    
+    /**
+     * Constructs a FloatNeuralNetwork with specified layer sizes and activation functions.
+     *
+     * @param inputSize The number of neurons in the input layer.
+     * @param hiddenLayers An array containing the sizes of each hidden layer.
+     * @param outputSize The number of neurons in the output layer.
+     * @param activationFunction The activation function for all layers except the output layer.
+     * @param lossFunction The loss function to use during training.
+     */
+    public FloatNeuralNetwork(int inputSize, int[] hiddenLayers, int outputSize, ActivationFunction activationFunction,
+                              LossFunction lossFunction) {
+        this.lossFunction = lossFunction;
+        layers = new FloatLayer[hiddenLayers.length + 1];  // + 1 for output layer
+        int previousLayerSize = inputSize;
+        for (int i = 0; i < hiddenLayers.length; i++) {
+            layers[i] = new FloatLayer(hiddenLayers[i], previousLayerSize, activationFunction);
+            previousLayerSize = hiddenLayers[i];
+        }
+        layers[hiddenLayers.length] = new FloatLayer(outputSize, previousLayerSize, new Linear());
+    }
+    
+    /**
+     * Constructs a FloatNeuralNetwork holding the parameters of a double-precision network rounded to float,
+     * for example to serve a model that was trained in double precision.
+     *
+     * @param network The network whose topology, parameters and loss function are copied.
+     */
+    public FloatNeuralNetwork(NeuralNetwork network) {
+        this.lossFunction = network.getLossFunction();
+        Layer[] sourceLayers = network.getLayers();
+        layers = new FloatLayer[sourceLayers.length];
+        for (int i = 0; i < sourceLayers.length; i++) {
+            layers[i] = new FloatLayer(sourceLayers[i]);
+        }
+    }
+    
+    /**
+     * Trains the neural network using provided input data and expected outputs.
+     * The data is copied once into a {@link Dataset}, so the arrays are neither reordered nor modified.
+     *
+     * @param inputs The input data for training.
+     * @param expectedOutputs The expected output data for training.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     */
+    public void train(float[][] inputs, float[][] expectedOutputs, int epochs, float learningRate) {
+        train(toDataset(inputs, expectedOutputs), epochs, learningRate);
+    }
+    
+    /**
+     * Trains the neural network one example at a time, visiting the examples in a new random order every epoch.
+     *
+     * @param dataset The training data; its order is shuffled.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     */
+    public void train(Dataset dataset, int epochs, float learningRate) {
+        checkDataset(dataset);
+        FloatTrainingWorkspace workspace = new FloatTrainingWorkspace(layers, 1);
+        int size = dataset.size();
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            EpochEvent epochEvent = new EpochEvent();
+            epochEvent.begin();
+            epochStarted(epoch + 1, epochs);
+            dataset.shuffle(random);
+            workspace.resetTimings();
+            double totalLoss = 0;
+            long startTime = System.nanoTime();
+            long startAllocation = Allocations.currentThread();
+            for (int i = 0; i < size; i++) {
+                totalLoss += workspace.trainSample(dataset, i, learningRate, lossFunction);
+            }
+            
+            epochFinished(epochEvent, new EpochMetrics(epoch + 1, epochs, size, totalLoss / size,
+                                                       System.nanoTime() - startTime, workspace.forwardNanos(),
+                                                       workspace.backwardNanos(), 0,
+                                                       Allocations.currentThread() - startAllocation));
+        }
+    }
+    
+    /**
+     * Trains the neural network in batches.
+     * The data is copied once into a {@link Dataset}, so the arrays are neither reordered nor modified.
+     *
+     * @param inputs The input data for training.
+     * @param expectedOutputs The expected output data for training.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param batchSize The size of each batch for training.
+     */
+    public void train(float[][] inputs, float[][] expectedOutputs, int epochs, float learningRate, int batchSize) {
+        train(toDataset(inputs, expectedOutputs), epochs, learningRate, batchSize);
+    }
+    
+    /**
+     * Trains the neural network in batches. Every epoch shuffles only the order of the dataset, and the examples of
+     * each batch are gathered straight from its storage into a reused workspace.
+     *
+     * @param dataset The training data; its order is shuffled.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param batchSize The size of each batch for training.
+     */
+    public void train(Dataset dataset, int epochs, float learningRate, int batchSize) {
+        checkDataset(dataset);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        int size = dataset.size();
+        int numBatches = (size + batchSize - 1) / batchSize;
+        FloatTrainingWorkspace workspace = new FloatTrainingWorkspace(layers, Math.min(batchSize, size));
+        
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            EpochEvent epochEvent = new EpochEvent();
+            epochEvent.begin();
+            epochStarted(epoch + 1, epochs);
+            dataset.shuffle(random);
+            double totalLoss = 0;
+            long forwardNanos = 0;
+            long backwardNanos = 0;
+            long updateNanos = 0;
+            long startTime = System.nanoTime();
+            long startAllocation = Allocations.currentThread();
+            
+            for (int batchIndex = 0; batchIndex < numBatches; batchIndex++) {
+                int start = batchIndex * batchSize;
+                int end = Math.min(start + batchSize, size);
+                BatchEvent batchEvent = new BatchEvent();
+                batchEvent.begin();
+                batchStarted(epoch + 1, batchIndex + 1, numBatches);
+                workspace.resetTimings();
+                long batchStart = System.nanoTime();
+                double batchLoss = workspace.computeGradients(dataset, start, end, lossFunction);
+                workspace.applyGradients(learningRate / (end - start));
+                long batchDuration = System.nanoTime() - batchStart;
+                
+                totalLoss += batchLoss;
+                forwardNanos += workspace.forwardNanos();
+                backwardNanos += workspace.backwardNanos();
+                updateNanos += workspace.updateNanos();
+                batchFinished(batchEvent, new BatchMetrics(epoch + 1, batchIndex + 1, numBatches, end - start,
+                                                           batchLoss / (end - start), batchDuration,
+                                                           workspace.forwardNanos(), workspace.backwardNanos(),
+                                                           workspace.updateNanos()));
+            }
+            epochFinished(epochEvent, new EpochMetrics(epoch + 1, epochs, size, totalLoss / size,
+                                                       System.nanoTime() - startTime, forwardNanos, backwardNanos,
+                                                       updateNanos, Allocations.currentThread() - startAllocation));
+        }
+    }
+    
+    /**
+     * Adds a listener that is notified of the progress of every subsequent training run.
+     *
+     * @param listener The listener to add.
+     */
+    public void addTrainingListener(TrainingListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a listener added with {@link #addTrainingListener(TrainingListener)}, or the default
+     * {@link ConsoleTrainingReporter} found through {@link #getTrainingListeners()}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeTrainingListener(TrainingListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Returns the listeners notified of training progress, in the order they are called.
+     *
+     * @return An unmodifiable view of the listeners.
+     */
+    public List<TrainingListener> getTrainingListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
+    
+    private void epochStarted(int epoch, int epochs) {
+        for (TrainingListener listener : listeners) {
+            listener.epochStarted(epoch, epochs);
+        }
+    }
+    
+    private void batchStarted(int epoch, int batch, int batches) {
+        for (TrainingListener listener : listeners) {
+            listener.batchStarted(epoch, batch, batches);
+        }
+    }
+    
+    private void batchFinished(BatchEvent event, BatchMetrics metrics) {
+        event.commit(metrics);
+        for (TrainingListener listener : listeners) {
+            listener.batchFinished(metrics);
+        }
+    }
+    
+    private void epochFinished(EpochEvent event, EpochMetrics metrics) {
+        event.commit(metrics);
+        for (TrainingListener listener : listeners) {
+            listener.epochFinished(metrics);
+        }
+    }
+    
+    /**
+     * Predicts the output for a single input.
+     *
+     * @param inputs The input values.
+     * @return The output values as predicted by the network.
+     */
+    public float[] predict(float[] inputs) {
+        float[] outputs = inputs;
+        for (FloatLayer layer : layers) {
+            outputs = layer.feedForward(outputs);
+        }
+        return MathUtilities.softmax(outputs);
+    }
+    
+    /**
+     * Predicts the output for multiple inputs.
+     *
+     * @param inputs The array of input values.
+     * @return The array of output values as predicted by the network.
+     */
+    public float[][] predict(float[][] inputs) {
+        float[][] outputs = inputs;
+        for (FloatLayer layer : layers) {
+            outputs = layer.feedForward(outputs);
+        }
+        
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = MathUtilities.softmax(outputs[i]);
+        }
+        return outputs;
+    }
+    
+    /**
+     * Copies training data into a dataset, widening it to double precision.
+     *
+     * @param inputs The input data.
+     * @param expectedOutputs The expected output data.
+     * @return A new dataset holding the examples in their given order.
+     */
+    private static Dataset toDataset(float[][] inputs, float[][] expectedOutputs) {
+        if (inputs.length != expectedOutputs.length) {
+            throw new IllegalArgumentException("Inputs and outputs must have the same length");
+        }
+        if (inputs.length == 0) {
+            throw new IllegalArgumentException("Dataset sizes must be positive.");
+        }
+        Dataset dataset = new Dataset(inputs.length, inputs[0].length, expectedOutputs[0].length);
+        for (int i = 0; i < inputs.length; i++) {
+            dataset.set(i, MathUtilities.toDouble(inputs[i]), MathUtilities.toDouble(expectedOutputs[i]));
+        }
+        return dataset;
+    }
+    
+    private void checkDataset(Dataset dataset) {
+        if (dataset.getInputSize() != layers[0].getInputSize()
+            || dataset.getOutputSize() != layers[layers.length - 1].getLayerSize()) {
+            throw new IllegalArgumentException("Dataset sizes must match the network.");
+        }
+    }
+    
+    /**
+     * Returns the layers of the network, ending with the linear output layer.
+     *
+     * @return The array of layers in feed-forward order.
+     */
+    public FloatLayer[] getLayers() {
+        return layers;
+    }
+}
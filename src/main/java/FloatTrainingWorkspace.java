@@ -0,0 +1,211 @@
+/**
+ * Single-precision counterpart of {@link TrainingWorkspace}: holds the gathered inputs, every layer's weighted sums,
+ * activations and errors as row-major float matrices, and one weight and bias gradient per layer of a
+ * {@link FloatNeuralNetwork}. Examples are gathered from a {@link Dataset} and rounded to float as they are copied.
+ * The output layer is small, so the loss and its gradient are computed on double-precision copies of its rows.
+ */
+final class FloatTrainingWorkspace {
+    private final FloatLayer[] layers;
+    private final int capacity;
+    private final float[] inputs;
+    private final double[] scores;
+    private final double[] targets;
+    private final double[] outputErrors;
+    private final float[][] preActivations;
+    private final float[][] activations;
+    private final float[][] errors;
+    private final float[][] weightGradients;
+    private final float[][] biasGradients;
+    private final double[] activationScratch;
+    private long forwardNanos;
+    private long backwardNanos;
+    private long updateNanos;
+    
+    /**
+     * Constructs a workspace for the given layers.
+     *
+     * @param layers The layers of the network in feed-forward order.
+     * @param capacity The largest number of rows this workspace processes at once.
+     */
+    FloatTrainingWorkspace(FloatLayer[] layers, int capacity) {
+        this.layers = layers;
+        this.capacity = capacity;
+        int outputSize = layers[layers.length - 1].getLayerSize();
+        this.inputs = new float[capacity * layers[0].getInputSize()];
+        this.scores = new double[outputSize];
+        this.targets = new double[outputSize];
+        this.outputErrors = new double[outputSize];
+        this.preActivations = new float[layers.length][];
+        this.activations = new float[layers.length][];
+        this.errors = new float[layers.length][];
+        this.weightGradients = new float[layers.length][];
+        this.biasGradients = new float[layers.length][];
+        int largestLayer = 0;
+        for (int i = 0; i < layers.length; i++) {
+            preActivations[i] = new float[capacity * layers[i].getLayerSize()];
+            activations[i] = new float[capacity * layers[i].getLayerSize()];
+            errors[i] = new float[capacity * layers[i].getLayerSize()];
+            weightGradients[i] = new float[layers[i].getLayerSize() * layers[i].getInputSize()];
+            biasGradients[i] = new float[layers[i].getLayerSize()];
+            largestLayer = Math.max(largestLayer, layers[i].getLayerSize());
+        }
+        // Shared by the layers one at a time to evaluate activation functions in double precision
+        this.activationScratch = new double[capacity * largestLayer];
+    }
+    
+    /**
+     * Computes the gradients summed over a range of training examples, replacing the previous contents of this
+     * workspace. The inputs of the examples are gathered from the dataset in its current order.
+     *
+     * @param dataset The training data.
+     * @param start The position of the first example, inclusive.
+     * @param end The position of the last example, exclusive.
+     * @param lossFunction The loss function to differentiate.
+     * @return The summed loss of the examples.
+     */
+    double computeGradients(Dataset dataset, int start, int end, LossFunction lossFunction) {
+        int rows = end - start;
+        if (rows > capacity) {
+            throw new IllegalArgumentException("Number of rows must not exceed the workspace capacity.");
+        }
+        long startTime = System.nanoTime();
+        int inputSize = layers[0].getInputSize();
+        for (int i = 0; i < rows; i++) {
+            narrow(dataset.data(), dataset.inputOffset(start + i), inputs, i * inputSize, inputSize);
+        }
+        
+        float[] layerInputs = inputs;
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].feedForward(layerInputs, rows, preActivations[i], activations[i], activationScratch);
+            layerInputs = activations[i];
+        }
+        
+        double totalLoss = 0;
+        for (int i = 0; i < rows; i++) {
+            totalLoss += computeLoss(dataset, start + i, i, lossFunction);
+        }
+        long forwardEnd = System.nanoTime();
+        
+        for (int i = layers.length - 1; i >= 0; i--) {
+            float[] layerInput = i > 0 ? activations[i - 1] : inputs;
+            float[] previousLayerErrors = i > 0 ? errors[i - 1] : null;
+            layers[i].computeGradients(errors[i], preActivations[i], layerInput, rows, weightGradients[i],
+                                       biasGradients[i], previousLayerErrors, activationScratch);
+        }
+        long backwardEnd = System.nanoTime();
+        forwardNanos += forwardEnd - startTime;
+        backwardNanos += backwardEnd - forwardEnd;
+        return totalLoss;
+    }
+    
+    /**
+     * Takes a gradient descent step on every layer using the gradients held by this workspace.
+     *
+     * @param scale The factor applied to the gradients, typically the learning rate divided by the batch size.
+     */
+    void applyGradients(float scale) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].applyGradients(weightGradients[i], biasGradients[i], scale);
+        }
+        updateNanos += System.nanoTime() - startTime;
+    }
+    
+    /**
+     * Runs one step of stochastic gradient descent on a single example, updating the layers directly.
+     *
+     * @param dataset The training data.
+     * @param position The position of the example in the current order of the dataset.
+     * @param learningRate The learning rate used for weight updates.
+     * @param lossFunction The loss function to differentiate.
+     * @return The loss of the example before the update.
+     */
+    double trainSample(Dataset dataset, int position, float learningRate, LossFunction lossFunction) {
+        long startTime = System.nanoTime();
+        narrow(dataset.data(), dataset.inputOffset(position), inputs, 0, layers[0].getInputSize());
+        float[] layerInputs = inputs;
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].feedForward(layerInputs, 1, preActivations[i], activations[i], activationScratch);
+            layerInputs = activations[i];
+        }
+        double loss = computeLoss(dataset, position, 0, lossFunction);
+        long forwardEnd = System.nanoTime();
+        
+        for (int i = layers.length - 1; i >= 0; i--) {
+            float[] layerInput = i > 0 ? activations[i - 1] : inputs;
+            float[] previousLayerErrors = i > 0 ? errors[i - 1] : null;
+            layers[i].backPropagate(errors[i], layerInput, preActivations[i], learningRate, previousLayerErrors,
+                                    activationScratch);
+        }
+        long backwardEnd = System.nanoTime();
+        forwardNanos += forwardEnd - startTime;
+        backwardNanos += backwardEnd - forwardEnd;
+        return loss;
+    }
+    
+    /**
+     * Returns the time this workspace spent in forward passes and the loss since its timings were last reset.
+     *
+     * @return The forward time in nanoseconds.
+     */
+    long forwardNanos() {
+        return forwardNanos;
+    }
+    
+    /**
+     * Returns the time this workspace spent back-propagating since its timings were last reset, including the
+     * weight updates of {@link #trainSample}.
+     *
+     * @return The backward time in nanoseconds.
+     */
+    long backwardNanos() {
+        return backwardNanos;
+    }
+    
+    /**
+     * Returns the time this workspace spent applying gradients since its timings were last reset.
+     *
+     * @return The update time in nanoseconds.
+     */
+    long updateNanos() {
+        return updateNanos;
+    }
+    
+    /**
+     * Resets the timings of this workspace to zero.
+     */
+    void resetTimings() {
+        forwardNanos = 0;
+        backwardNanos = 0;
+        updateNanos = 0;
+    }
+    
+    /**
+     * Computes the softmax loss of one row of the output layer in double precision and stores its gradient,
+     * rounded to float, as the errors of that row.
+     *
+     * @param dataset The training data.
+     * @param position The position of the example in the current order of the dataset.
+     * @param row The row of the example in this workspace.
+     * @param lossFunction The loss function to differentiate.
+     * @return The loss of the example.
+     */
+    private double computeLoss(Dataset dataset, int position, int row, LossFunction lossFunction) {
+        int last = layers.length - 1;
+        int outputSize = scores.length;
+        int offset = row * outputSize;
+        for (int j = 0; j < outputSize; j++) {
+            scores[j] = activations[last][offset + j];
+        }
+        System.arraycopy(dataset.data(), dataset.outputOffset(position), targets, 0, outputSize);
+        double loss = lossFunction.calculateSoftmaxLoss(scores, 0, targets, outputErrors, 0, outputSize);
+        narrow(outputErrors, 0, errors[last], offset, outputSize);
+        return loss;
+    }
+    
+    private static void narrow(double[] source, int sourceOffset, float[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = (float) source[sourceOffset + i];
+        }
+    }
+}
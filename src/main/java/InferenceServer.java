@@ -0,0 +1,207 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A local HTTP inference server for a {@link NeuralNetwork}, built on the JDK's {@code com.sun.net.httpserver}.
+ * Every exchange is handled on its own virtual thread, which blocks cheaply while its input waits in a micro-batch:
+ * concurrent requests are coalesced into batches of up to maxBatchSize inputs, waiting at most maxWait for a batch to
+ * fill, and run through the batched forward pass {@link NeuralNetwork#predict(double[][])}.
+ * <p>
+ * The server answers {@code POST /predict} with a body holding the input values as a JSON array of numbers, such as
+ * {@code [0.5, 1, -2]}, with the output probabilities as a JSON array. Malformed bodies and inputs of the wrong size
+ * are answered with status 400, other methods with 405, and bodies longer than 32 bytes per input plus 1 KiB with
+ * 413. Requests wait in a bounded queue; a request that finds it full is handled according to an
+ * {@link OverloadPolicy}, and the rejected or dropped request is answered with 503 and a {@code Retry-After} header.
+ * Requests arriving while the server closes are answered with 503 without one.
+ */
+public class InferenceServer implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+    // Room for the longest decimal form of a double and a separator per input, plus whitespace
+    private static final int BODY_BYTES_PER_INPUT = 32;
+    private static final int BODY_BYTES_SLACK = 1_024;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MicroBatcher batcher;
+    private final int inputSize;
+    private final int maxBodyBytes;
+    private volatile boolean closing;
+    
+    /**
+     * Constructs a server bound to an address, queueing up to 1024 requests and rejecting further ones while the
+     * queue is full. The server accepts no requests until {@link #start()} is called.
+     *
+     * @param network The network to serve; it must not be trained while the server runs.
+     * @param address The address to bind, for example {@code new InetSocketAddress("localhost", 8080)}; port 0
+     *                picks a free port.
+     * @param maxBatchSize The largest number of requests run as one batch.
+     * @param maxWait The longest time a request waits for others to join its batch.
+     * @throws IOException if the address cannot be bound.
+     * @throws IllegalArgumentException if the batch size is not positive or the wait is negative.
+     */
+    public InferenceServer(NeuralNetwork network, InetSocketAddress address, int maxBatchSize, Duration maxWait)
+            throws IOException {
+        this(network, address, maxBatchSize, maxWait, DEFAULT_QUEUE_CAPACITY, OverloadPolicy.REJECT);
+    }
+    
+    /**
+     * Constructs a server bound to an address with a queue of the given capacity. The server accepts no requests
+     * until {@link #start()} is called.
+     *
+     * @param network The network to serve; it must not be trained while the server runs.
+     * @param address The address to bind, for example {@code new InetSocketAddress("localhost", 8080)}; port 0
+     *                picks a free port.
+     * @param maxBatchSize The largest number of requests run as one batch.
+     * @param maxWait The longest time a request waits for others to join its batch.
+     * @param queueCapacity The largest number of requests waiting for a batch.
+     * @param policy What to do with a request that arrives while the queue is full.
+     * @throws IOException if the address cannot be bound.
+     * @throws IllegalArgumentException if the batch size or queue capacity is not positive or the wait is negative.
+     */
+    public InferenceServer(NeuralNetwork network, InetSocketAddress address, int maxBatchSize, Duration maxWait,
+                           int queueCapacity, OverloadPolicy policy) throws IOException {
+        this.batcher = new MicroBatcher(network, maxBatchSize, maxWait, queueCapacity, 1, policy);
+        this.inputSize = network.getLayers()[0].getInputSize();
+        this.maxBodyBytes = (int) Math.min(Integer.MAX_VALUE - 8,
+                                           (long) inputSize * BODY_BYTES_PER_INPUT + BODY_BYTES_SLACK);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            this.server = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            batcher.close();
+            throw e;
+        }
+        server.setExecutor(executor);
+        server.createContext("/predict", this::handlePredict);
+    }
+    
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+    
+    /**
+     * Returns the address the server is bound to, including the port chosen when it was created with port 0.
+     *
+     * @return The bound address.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+    
+    /**
+     * Stops accepting requests, fails the requests that have not been run yet and waits for the handlers to finish.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        server.stop(0);
+        batcher.close();
+        executor.close();
+    }
+    
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Use POST.");
+                return;
+            }
+            byte[] body = exchange.getRequestBody().readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                respond(exchange, 413, "The body must not exceed " + maxBodyBytes + " bytes.");
+                return;
+            }
+            double[] inputs;
+            try {
+                inputs = parseArray(new String(body, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "The body must be a JSON array of numbers.");
+                return;
+            }
+            if (inputs.length != inputSize) {
+                respond(exchange, 400, "Expected " + inputSize + " inputs but got " + inputs.length + ".");
+                return;
+            }
+            double[] outputs;
+            try {
+                outputs = batcher.submit(inputs).join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof RejectedExecutionException)) {
+                    respond(exchange, 500, "Prediction failed.");
+                } else if (closing) {
+                    respond(exchange, 503, "The server is closing.");
+                } else {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    respond(exchange, 503, "The server is overloaded. " + e.getCause().getMessage());
+                }
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            respond(exchange, 200, formatArray(outputs));
+        }
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(bytes);
+        }
+    }
+    
+    /**
+     * Parses a JSON array of numbers.
+     *
+     * @throws NumberFormatException if the text is not a flat array of numbers.
+     */
+    private static double[] parseArray(String text) {
+        String trimmed = text.strip();
+        if (trimmed.length() < 2 || trimmed.charAt(0) != '[' || trimmed.charAt(trimmed.length() - 1) != ']') {
+            throw new NumberFormatException("Not a JSON array.");
+        }
+        String content = trimmed.substring(1, trimmed.length() - 1).strip();
+        if (content.isEmpty()) {
+            return new double[0];
+        }
+        String[] elements = content.split(",");
+        double[] values = new double[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            String element = elements[i].strip();
+            // Double.parseDouble also accepts NaN, Infinity and type suffixes, none of which are JSON numbers
+            if (element.isEmpty() || !Character.isDigit(element.charAt(element.length() - 1))) {
+                throw new NumberFormatException("Not a JSON number: " + element);
+            }
+            values[i] = Double.parseDouble(element);
+        }
+        return values;
+    }
+    
+    /**
+     * Formats values as a JSON array of numbers, writing non-finite values as null.
+     */
+    private static String formatArray(double[] values) {
+        StringBuilder builder = new StringBuilder(values.length * 24).append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            if (Double.isFinite(values[i])) {
+                builder.append(values[i]);
+            } else {
+                builder.append("null");
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Holds preallocated activation buffers for every layer of a {@link NeuralNetwork}, sized from its topology,
+ * so that {@link NeuralNetwork#predict(double[], double[], InferenceWorkspace)} runs without allocating.
+ * A workspace may be reused for any number of predictions but must not be used by two threads at once.
+ */
+public class InferenceWorkspace {
+    private final double[][] activations;
+    
+    /**
+     * Constructs a workspace for the given network.
+     *
+     * @param network The network whose layer sizes determine the buffer sizes.
+     */
+    public InferenceWorkspace(NeuralNetwork network) {
+        Layer[] layers = network.getLayers();
+        activations = new double[layers.length][];
+        for (int i = 0; i < layers.length; i++) {
+            activations[i] = new double[layers[i].getLayerSize()];
+        }
+    }
+    
+    /**
+     * Returns the activation buffer of a layer.
+     *
+     * @param layerIndex The index of the layer in feed-forward order.
+     * @return The buffer holding that layer's outputs from the most recent prediction.
+     */
+    double[] getActivations(int layerIndex) {
+        return activations[layerIndex];
+    }
+}
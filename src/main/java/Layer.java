@@ -1,10 +1,34 @@
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
 /**
- * Represents a layer in a neural network, consisting of an array of neurons and associated activation functions.
+ * Represents a layer in a neural network, storing its parameters as a dense row-major weight matrix and a bias vector.
+ * Row {@code j} of the weight matrix holds the incoming weights of neuron {@code j}, so the whole layer lives in two
+ * contiguous arrays instead of one heap object per neuron.
  * This class handles both feed-forward and back-propagation processes for single inputs and batch inputs.
+ * The feed-forward passes only read the layer, so one layer can serve predictions on many threads at once;
+ * the weighted sums used by back-propagation are recorded by the training loop of {@link NeuralNetwork}.
+ * Only single-input training records its activations on the layer, readable through {@link #getActivations()};
+ * batch training keeps the activations of every row in the buffers of its workers.
+ * The weight matrix is either a heap array or, for very large layers, an off-heap {@link MemorySegment} of
+ * little-endian doubles owned by an {@link Arena}, which keeps it out of the garbage-collected heap.
  */
 public class Layer {
+    // Alignment of off-heap weight matrices, a cache line and the widest vector register
+    static final long SEGMENT_ALIGNMENT = 64;
+    // Weight rows of an off-heap layer that stay in cache while a batch streams past them
+    private static final int OFF_HEAP_BLOCK_ROWS = 64;
+    private final int layerSize;
+    private final int inputSize;
+    private final double[] weights;
+    private final MemorySegment weightSegment;
+    private final double[] biases;
+    private final double[] preActivations;
+    private final double[] activations;
     private Neuron[] neurons;
-    private double[][] lastBatchActivations;
     private final ActivationFunction activationFunction;
     
     /**
@@ -15,19 +39,70 @@ public class Layer {
      * @param activationFunction The activation function to be used by all neurons in the layer.
      */
     public Layer(int layerSize, int inputSize, ActivationFunction activationFunction) {
-        this.neurons = new Neuron[layerSize];
-        this.activationFunction = activationFunction;
-        initializeLayer(inputSize);
+        this(layerSize, inputSize, activationFunction, new double[layerSize * inputSize], new double[layerSize]);
+        initializeWeights();
     }
     
     /**
-     * Initializes all neurons in the layer with the specified input size.
+     * Constructs a Layer that takes ownership of existing parameter arrays, for example ones read from a model file.
      *
-     * @param inputSize The size of the input that each neuron will accept.
+     * @param layerSize The number of neurons in the layer.
+     * @param inputSize The size of the input received by each neuron.
+     * @param activationFunction The activation function to be used by all neurons in the layer.
+     * @param weights The layerSize x inputSize weight matrix in row-major order.
+     * @param biases The bias vector, one entry per neuron.
      */
-    private void initializeLayer(int inputSize) {
-        for (int i = 0; i < neurons.length; i++) {
-            neurons[i] = new Neuron(inputSize);
+    Layer(int layerSize, int inputSize, ActivationFunction activationFunction, double[] weights, double[] biases) {
+        this(layerSize, inputSize, activationFunction, weights, null, biases);
+        if (weights.length != layerSize * inputSize) {
+            throw new IllegalArgumentException("Parameter sizes must match the layer dimensions.");
+        }
+    }
+    
+    /**
+     * Constructs a Layer whose weight matrix is allocated off-heap in the given arena. The layer must not be used
+     * after the arena is closed.
+     *
+     * @param layerSize The number of neurons in the layer.
+     * @param inputSize The size of the input received by each neuron.
+     * @param activationFunction The activation function to be used by all neurons in the layer.
+     * @param arena The arena that owns the weight matrix.
+     */
+    public Layer(int layerSize, int inputSize, ActivationFunction activationFunction, Arena arena) {
+        this(layerSize, inputSize, activationFunction, null,
+             arena.allocate((long) layerSize * inputSize * Double.BYTES, SEGMENT_ALIGNMENT), new double[layerSize]);
+        initializeWeights();
+    }
+    
+    private Layer(int layerSize, int inputSize, ActivationFunction activationFunction, double[] weights,
+                  MemorySegment weightSegment, double[] biases) {
+        if (biases.length != layerSize) {
+            throw new IllegalArgumentException("Parameter sizes must match the layer dimensions.");
+        }
+        this.layerSize = layerSize;
+        this.inputSize = inputSize;
+        this.weights = weights;
+        this.weightSegment = weightSegment;
+        this.biases = biases;
+        this.preActivations = new double[layerSize];
+        this.activations = new double[layerSize];
+        this.activationFunction = activationFunction;
+    }
+    
+    /**
+     * Initializes the weight matrix with random values near zero.
+     */
+    private void initializeWeights() {
+        Random randomNumberGenerator = new Random();
+        long count = (long) layerSize * inputSize;
+        for (long i = 0; i < count; i++) {
+            // Initialize weights to random double between -0.05 and 0.05
+            double weight = randomNumberGenerator.nextDouble() * 0.1 - 0.05;
+            if (weights != null) {
+                weights[(int) i] = weight;
+            } else {
+                weightSegment.setAtIndex(MathUtilities.LITTLE_ENDIAN_DOUBLE, i, weight);
+            }
         }
     }
     
@@ -38,33 +113,140 @@ public class Layer {
      * @return An array of output values from the layer.
      */
     protected double[] feedForward(double[] inputs) {
-        double[] outputs = new double[neurons.length];
-        for (int i = 0; i < neurons.length; i++) {
-            outputs[i] = neurons[i].feedForward(inputs, activationFunction);
-        }
+        double[] outputs = new double[layerSize];
+        feedForward(inputs, outputs);
         return outputs;
     }
     
+    /**
+     * Performs feed-forward operation for a single set of inputs, writing the outputs into a caller-supplied buffer.
+     * Does not allocate.
+     *
+     * @param inputs An array of input values to be processed by the layer.
+     * @param outputs An array receiving one output value per neuron.
+     */
+    protected void feedForward(double[] inputs, double[] outputs) {
+        feedForward(inputs, null, outputs);
+    }
+    
+    /**
+     * Performs feed-forward operation for a single set of inputs, writing the weighted sums and the outputs into
+     * caller-supplied buffers. Does not allocate.
+     *
+     * @param inputs An array of input values to be processed by the layer.
+     * @param preActivations An array receiving the weighted sum of every neuron before the activation function,
+     *                       or null if they are not needed.
+     * @param outputs An array receiving one output value per neuron.
+     */
+    protected void feedForward(double[] inputs, double[] preActivations, double[] outputs) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        if (outputs.length != layerSize) {
+            throw new IllegalArgumentException("Output size must match the number of neurons.");
+        }
+        for (int j = 0; j < layerSize; j++) {
+            double total = weights != null ?
+                           MathUtilities.dotProduct(weights, j * inputSize, inputs, 0, inputSize) :
+                           MathUtilities.dotProduct(weightSegment, rowOffset(j), inputs, 0, inputSize);
+            outputs[j] = total + biases[j];
+        }
+        if (preActivations != null) {
+            System.arraycopy(outputs, 0, preActivations, 0, layerSize);
+        }
+        activationFunction.activate(outputs, outputs, 0, layerSize);
+    }
+    
     /**
      * Performs feed-forward operation for a batch of inputs through this layer.
+     * The weighted sums of the whole batch are computed as one matrix product of the inputs and the transposed
+     * weight matrix.
      *
      * @param inputs A 2D array of input values to be processed by the layer in batches.
      * @return A 2D array of output values from the layer.
      */
     protected double[][] feedForward(double[][] inputs) {
-        double[][] outputs = new double[inputs.length][neurons.length];
-        for (int i = 0; i < neurons.length; i++) {
-            double[] neuronOutputs = neurons[i].feedForward(inputs, activationFunction);
-            for (int j = 0; j < inputs.length; j++) {
-                outputs[j][i] = neuronOutputs[j];
+        if (inputs[0].length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        double[] outputs = new double[inputs.length * layerSize];
+        feedForward(MathUtilities.flatten(inputs), inputs.length, outputs);
+        return MathUtilities.reshape(outputs, inputs.length, layerSize);
+    }
+    
+    /**
+     * Performs feed-forward operation for a batch of inputs stored as one row-major matrix,
+     * writing the outputs into a caller-supplied row-major buffer.
+     *
+     * @param inputs The batchSize x inputSize input matrix in row-major order.
+     * @param batchSize The number of inputs in the batch.
+     * @param outputs The buffer receiving the batchSize x layerSize output matrix in row-major order.
+     */
+    protected void feedForward(double[] inputs, int batchSize, double[] outputs) {
+        feedForward(inputs, batchSize, null, outputs);
+    }
+    
+    /**
+     * Performs feed-forward operation for a batch of inputs stored as one row-major matrix, writing the weighted sums
+     * and the outputs into caller-supplied row-major buffers.
+     *
+     * @param inputs The batchSize x inputSize input matrix in row-major order.
+     * @param batchSize The number of inputs in the batch.
+     * @param preActivations The buffer receiving the batchSize x layerSize matrix of weighted sums before the
+     *                       activation function, or null if they are not needed.
+     * @param outputs The buffer receiving the batchSize x layerSize output matrix in row-major order.
+     */
+    protected void feedForward(double[] inputs, int batchSize, double[] preActivations, double[] outputs) {
+        weightedSums(inputs, batchSize, outputs);
+        if (preActivations != null) {
+            System.arraycopy(outputs, 0, preActivations, 0, batchSize * layerSize);
+        }
+        activationFunction.activate(outputs, outputs, 0, batchSize * layerSize);
+    }
+    
+    /**
+     * Computes the weighted sums of a batch of inputs plus the biases, before the activation function.
+     *
+     * @param inputs The batchSize x inputSize input matrix in row-major order.
+     * @param batchSize The number of inputs in the batch.
+     * @param sums The buffer receiving the batchSize x layerSize matrix of weighted sums in row-major order.
+     */
+    private void weightedSums(double[] inputs, int batchSize, double[] sums) {
+        if (weights != null) {
+            MathUtilities.matrixMultiplyTransposedB(inputs, weights, sums, batchSize, layerSize, inputSize);
+        } else {
+            for (int block = 0; block < layerSize; block += OFF_HEAP_BLOCK_ROWS) {
+                int blockEnd = Math.min(block + OFF_HEAP_BLOCK_ROWS, layerSize);
+                for (int i = 0; i < batchSize; i++) {
+                    for (int j = block; j < blockEnd; j++) {
+                        sums[i * layerSize + j] = MathUtilities.dotProduct(weightSegment, rowOffset(j), inputs,
+                                                                           i * inputSize, inputSize);
+                    }
+                }
             }
         }
-        lastBatchActivations = outputs;
+        for (int i = 0; i < batchSize; i++) {
+            MathUtilities.addScaled(sums, i * layerSize, biases, 0, 1, layerSize);
+        }
+    }
+    
+    /**
+     * Performs feed-forward operation for a single training example, recording the weighted sums and outputs of this
+     * layer for {@link #backPropagate(double[], double[], double)}.
+     *
+     * @param inputs An array of input values to be processed by the layer.
+     * @return An array of output values from the layer.
+     */
+    double[] trainingFeedForward(double[] inputs) {
+        double[] outputs = new double[layerSize];
+        feedForward(inputs, preActivations, outputs);
+        System.arraycopy(outputs, 0, activations, 0, layerSize);
         return outputs;
     }
     
     /**
-     * Performs back-propagation for a single set of errors and inputs through this layer.
+     * Performs back-propagation for a single set of errors and inputs through this layer, using the weighted sums
+     * recorded by the last single-input training pass.
      *
      * @param errors An array of error terms from the next layer.
      * @param inputs An array of input values to the layer.
@@ -72,24 +254,60 @@ public class Layer {
      * @return An array of error terms to propagate back to the previous layer.
      */
     protected double[] backPropagate(double[] errors, double[] inputs, double learningRate) {
-        double[] previousLayerErrors = new double[inputs.length];
-        
-        for (int j = 0; j < neurons.length; j++) {
-            double delta = errors[j] * activationFunction.derive(neurons[j].getActivation());
-            
-            neurons[j].updateWeights(inputs, delta, learningRate);
-            
-            double[] weights = neurons[j].getWeights();
-            for (int i = 0; i < weights.length; i++) {
-                previousLayerErrors[i] += weights[i] * delta;
+        double[] deltas = errors.clone();
+        double[] previousLayerErrors = new double[inputSize];
+        backPropagate(deltas, inputs, preActivations, learningRate, previousLayerErrors);
+        return previousLayerErrors;
+    }
+    
+    /**
+     * Performs back-propagation for a single example whose weighted sums are held by the caller rather than recorded
+     * on the layer, so several threads can train the same layer at once. Does not allocate.
+     *
+     * @param errors An array of error terms from the next layer; it is overwritten with the deltas of this layer.
+     * @param inputs An array of input values to the layer.
+     * @param preActivations The weighted sums of this layer for the same example, before the activation function;
+     *                       it is overwritten with the derivatives of the activation function.
+     * @param learningRate The learning rate for weight updates.
+     * @param previousLayerErrors The array receiving the error terms for the previous layer, or null if there is no
+     *                            previous layer.
+     */
+    protected void backPropagate(double[] errors, double[] inputs, double[] preActivations, double learningRate,
+                                 double[] previousLayerErrors) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        activationFunction.deriveInto(preActivations, preActivations, 0, layerSize);
+        if (previousLayerErrors != null) {
+            Arrays.fill(previousLayerErrors, 0, inputSize, 0);
+        }
+        // Each row is updated and then propagated while it is still in cache, in one pass over the matrix
+        for (int j = 0; j < layerSize; j++) {
+            double delta = errors[j] * preActivations[j];
+            errors[j] = delta;
+            if (delta == 0) {
+                continue;
+            }
+            double step = learningRate * delta;
+            if (weights != null && previousLayerErrors != null) {
+                MathUtilities.updateAndPropagate(weights, j * inputSize, inputs, step, previousLayerErrors, delta,
+                                                 inputSize);
+            } else if (weights != null) {
+                MathUtilities.addScaled(weights, j * inputSize, inputs, 0, -step, inputSize);
+            } else {
+                MathUtilities.addScaled(weightSegment, rowOffset(j), inputs, 0, -step, inputSize);
+                if (previousLayerErrors != null) {
+                    MathUtilities.addScaled(previousLayerErrors, 0, weightSegment, rowOffset(j), delta, inputSize);
+                }
             }
+            biases[j] -= step;
         }
-        
-        return previousLayerErrors;
     }
     
     /**
      * Performs back-propagation for a batch of errors and inputs through this layer.
+     * The errors for the previous layer are computed from the weights before this batch's update, and the weighted
+     * sums the derivatives are taken at are recomputed from the inputs.
      *
      * @param errors A 2D array of error terms from the next layer for each input in the batch.
      * @param inputs A 2D array of input values to the layer for each input in the batch.
@@ -97,67 +315,429 @@ public class Layer {
      * @return A 2D array of error terms to propagate back to the previous layer.
      */
     protected double[][] backPropagate(double[][] errors, double[][] inputs, double learningRate) {
-        double[][] previousLayerErrors = new double[inputs.length][inputs[0].length];
-        
-        for (int k = 0; k < neurons.length; k++) {
-            double[] deltas = new double[errors.length];
-            for (int i = 0; i < errors.length; i++) {
-                deltas[i] = errors[i][k] * activationFunction.derive(neurons[k].getActivation());
+        int batchSize = inputs.length;
+        double[] flatInputs = MathUtilities.flatten(inputs);
+        double[] preActivations = new double[batchSize * layerSize];
+        weightedSums(flatInputs, batchSize, preActivations);
+        double[] biasGradients = new double[layerSize];
+        double[] previousLayerErrors = new double[batchSize * inputSize];
+        if (weights != null) {
+            double[] weightGradients = new double[weights.length];
+            computeGradients(MathUtilities.flatten(errors), preActivations, flatInputs, batchSize, weightGradients,
+                             biasGradients, previousLayerErrors);
+            applyGradients(weightGradients, biasGradients, learningRate / batchSize);
+        } else {
+            try (Arena arena = Arena.ofConfined()) {
+                MemorySegment weightGradients = arena.allocate(weightSegment.byteSize(), SEGMENT_ALIGNMENT);
+                computeGradients(MathUtilities.flatten(errors), preActivations, flatInputs, batchSize,
+                                 weightGradients, biasGradients, previousLayerErrors);
+                applyGradients(weightGradients, biasGradients, learningRate / batchSize);
             }
-            
-            neurons[k].updateWeights(inputs, learningRate, deltas);
-            
-            double[] weights = neurons[k].getWeights();
-            for (int i = 0; i < inputs.length; i++) {
-                for (int j = 0; j < weights.length; j++) {
-                    previousLayerErrors[i][j] += weights[j] * deltas[i];
+        }
+        return MathUtilities.reshape(previousLayerErrors, batchSize, inputSize);
+    }
+    
+    /**
+     * Computes the summed weight and bias gradients of a batch without changing the layer.
+     * The weight gradient is the product of the transposed deltas and the inputs, and the errors for the previous
+     * layer are the product of the deltas and the weight matrix.
+     *
+     * @param errors The batchSize x layerSize matrix of error terms from the next layer in row-major order;
+     *               it is overwritten with the deltas of this layer.
+     * @param preActivations The batchSize x layerSize matrix of weighted sums of this layer for the same rows,
+     *                       before the activation function; it is overwritten with the derivatives of the
+     *                       activation function.
+     * @param inputs The batchSize x inputSize matrix of inputs to this layer in row-major order.
+     * @param batchSize The number of rows in the batch.
+     * @param weightGradients The buffer receiving the layerSize x inputSize weight gradient, summed over the batch.
+     * @param biasGradients The buffer receiving the bias gradient, summed over the batch.
+     * @param previousLayerErrors The buffer receiving the batchSize x inputSize errors for the previous layer,
+     *                            or null if there is no previous layer.
+     */
+    protected void computeGradients(double[] errors, double[] preActivations, double[] inputs, int batchSize,
+                                    double[] weightGradients, double[] biasGradients, double[] previousLayerErrors) {
+        computeDeltas(errors, preActivations, batchSize, biasGradients);
+        MathUtilities.matrixMultiplyTransposedA(errors, inputs, weightGradients, layerSize, inputSize, batchSize);
+        if (previousLayerErrors != null) {
+            propagateErrors(errors, batchSize, previousLayerErrors);
+        }
+    }
+    
+    /**
+     * Computes the summed weight and bias gradients of a batch into an off-heap weight gradient without changing the
+     * layer. Each gradient row is accumulated from the input rows while it stays in cache.
+     *
+     * @param errors The batchSize x layerSize matrix of error terms from the next layer in row-major order;
+     *               it is overwritten with the deltas of this layer.
+     * @param preActivations The batchSize x layerSize matrix of weighted sums of this layer for the same rows,
+     *                       before the activation function; it is overwritten with the derivatives of the
+     *                       activation function.
+     * @param inputs The batchSize x inputSize matrix of inputs to this layer in row-major order.
+     * @param batchSize The number of rows in the batch.
+     * @param weightGradients The segment receiving the layerSize x inputSize weight gradient as native-order doubles,
+     *                        summed over the batch.
+     * @param biasGradients The buffer receiving the bias gradient, summed over the batch.
+     * @param previousLayerErrors The buffer receiving the batchSize x inputSize errors for the previous layer,
+     *                            or null if there is no previous layer.
+     */
+    protected void computeGradients(double[] errors, double[] preActivations, double[] inputs, int batchSize,
+                                    MemorySegment weightGradients, double[] biasGradients,
+                                    double[] previousLayerErrors) {
+        computeDeltas(errors, preActivations, batchSize, biasGradients);
+        weightGradients.fill((byte) 0);
+        for (int k = 0; k < layerSize; k++) {
+            for (int i = 0; i < batchSize; i++) {
+                double delta = errors[i * layerSize + k];
+                if (delta != 0) {
+                    MathUtilities.addScaled(weightGradients, rowOffset(k), inputs, i * inputSize, delta, inputSize);
                 }
             }
         }
-        return previousLayerErrors;
+        if (previousLayerErrors != null) {
+            propagateErrors(errors, batchSize, previousLayerErrors);
+        }
+    }
+    
+    /**
+     * Multiplies every error by the derivative of the activation function at its own weighted sum, in place,
+     * and sums the results per neuron. The derivatives of the whole batch are computed in one bulk call into the
+     * weighted sums.
+     */
+    private void computeDeltas(double[] errors, double[] preActivations, int batchSize, double[] biasGradients) {
+        Arrays.fill(biasGradients, 0);
+        activationFunction.deriveInto(preActivations, preActivations, 0, batchSize * layerSize);
+        for (int i = 0; i < batchSize; i++) {
+            int row = i * layerSize;
+            for (int k = 0; k < layerSize; k++) {
+                double delta = errors[row + k] * preActivations[row + k];
+                errors[row + k] = delta;
+                biasGradients[k] += delta;
+            }
+        }
+    }
+    
+    /**
+     * Computes the errors for the previous layer, the product of the deltas and the weight matrix.
+     *
+     * @param deltas The batchSize x layerSize matrix of deltas of this layer.
+     * @param batchSize The number of rows in the batch.
+     * @param previousLayerErrors The buffer receiving the batchSize x inputSize product.
+     */
+    private void propagateErrors(double[] deltas, int batchSize, double[] previousLayerErrors) {
+        if (weights != null) {
+            if (batchSize == 1) {
+                MathUtilities.transposedMatrixVectorMultiply(weights, layerSize, inputSize, deltas,
+                                                             previousLayerErrors);
+            } else {
+                MathUtilities.matrixMultiply(deltas, weights, previousLayerErrors, batchSize, inputSize, layerSize);
+            }
+            return;
+        }
+        Arrays.fill(previousLayerErrors, 0, batchSize * inputSize, 0);
+        for (int k = 0; k < layerSize; k++) {
+            for (int i = 0; i < batchSize; i++) {
+                double delta = deltas[i * layerSize + k];
+                if (delta != 0) {
+                    MathUtilities.addScaled(previousLayerErrors, i * inputSize, weightSegment, rowOffset(k), delta,
+                                            inputSize);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Takes a gradient descent step, subtracting the scaled gradients from the weights and biases.
+     *
+     * @param weightGradients The layerSize x inputSize weight gradient in row-major order.
+     * @param biasGradients The bias gradient, one entry per neuron.
+     * @param scale The factor applied to the gradients, typically the learning rate divided by the batch size.
+     */
+    protected void applyGradients(double[] weightGradients, double[] biasGradients, double scale) {
+        if (weights != null) {
+            MathUtilities.addScaled(weights, 0, weightGradients, 0, -scale, weights.length);
+        } else {
+            for (int j = 0; j < layerSize; j++) {
+                MathUtilities.addScaled(weightSegment, rowOffset(j), weightGradients, j * inputSize, -scale,
+                                        inputSize);
+            }
+        }
+        MathUtilities.addScaled(biases, 0, biasGradients, 0, -scale, layerSize);
+    }
+    
+    /**
+     * Takes a gradient descent step with an off-heap weight gradient, subtracting the scaled gradients from the
+     * weights and biases.
+     *
+     * @param weightGradients The layerSize x inputSize weight gradient as native-order doubles in row-major order.
+     * @param biasGradients The bias gradient, one entry per neuron.
+     * @param scale The factor applied to the gradients, typically the learning rate divided by the batch size.
+     */
+    protected void applyGradients(MemorySegment weightGradients, double[] biasGradients, double scale) {
+        for (int j = 0; j < layerSize; j++) {
+            MathUtilities.addScaled(weightSegment, rowOffset(j), weightGradients, rowOffset(j), -scale, inputSize);
+        }
+        MathUtilities.addScaled(biases, 0, biasGradients, 0, -scale, layerSize);
+    }
+    
+    /**
+     * Updates the weights and biases with an optimizer, which makes one fused pass over each parameter array.
+     * Off-heap weights are updated one row at a time through a heap buffer.
+     *
+     * @param weightGradients The layerSize x inputSize weight gradient in row-major order.
+     * @param biasGradients The bias gradient, one entry per neuron.
+     * @param gradientScale The factor applied to the gradients, typically one over the batch size.
+     * @param learningRate The learning rate of this step.
+     * @param state The optimizer and its state for this layer.
+     */
+    protected void applyGradients(double[] weightGradients, double[] biasGradients, double gradientScale,
+                                  double learningRate, OptimizerState state) {
+        Optimizer optimizer = state.optimizer;
+        long step = ++state.step;
+        if (weights != null) {
+            optimizer.update(weights, 0, weightGradients, 0, state.weights, 0, weights.length, gradientScale,
+                             learningRate, step);
+        } else {
+            double[] row = new double[inputSize];
+            for (int j = 0; j < layerSize; j++) {
+                copyWeights(j, row);
+                optimizer.update(row, 0, weightGradients, j * inputSize, state.weights, j * inputSize, inputSize,
+                                 gradientScale, learningRate, step);
+                setWeights(j, row);
+            }
+        }
+        optimizer.update(biases, 0, biasGradients, 0, state.biases, 0, layerSize, gradientScale, learningRate, step);
+    }
+    
+    /**
+     * Updates the weights and biases with an optimizer, given an off-heap weight gradient. The optimizer makes one
+     * fused pass over the off-heap weights, gradients and state without copying them to the heap.
+     *
+     * @param weightGradients The layerSize x inputSize weight gradient as little-endian doubles in row-major order.
+     * @param biasGradients The bias gradient, one entry per neuron.
+     * @param gradientScale The factor applied to the gradients, typically one over the batch size.
+     * @param learningRate The learning rate of this step.
+     * @param state The optimizer and its state for this layer, with the weight state off-heap.
+     */
+    protected void applyGradients(MemorySegment weightGradients, double[] biasGradients, double gradientScale,
+                                  double learningRate, OptimizerState state) {
+        Optimizer optimizer = state.optimizer;
+        long step = ++state.step;
+        optimizer.update(weightSegment, 0, weightGradients, 0, state.weightSegments, 0, layerSize * inputSize,
+                         gradientScale, learningRate, step);
+        optimizer.update(biases, 0, biasGradients, 0, state.biases, 0, layerSize, gradientScale, learningRate, step);
+    }
+    
+    /**
+     * Returns the byte offset of a row of the weight matrix.
+     */
+    private long rowOffset(int row) {
+        return (long) row * inputSize * Double.BYTES;
+    }
+    
+    /**
+     * Returns the number of neurons in this layer.
+     *
+     * @return The number of neurons, which is also the number of rows of the weight matrix.
+     */
+    public int getLayerSize() {
+        return layerSize;
+    }
+    
+    /**
+     * Returns the size of the input received by each neuron of this layer.
+     *
+     * @return The number of inputs, which is also the number of columns of the weight matrix.
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+    
+    /**
+     * Returns a copy of the weight matrix of this layer in row-major order.
+     * The weight connecting input {@code i} to neuron {@code j} is stored at index {@code j * getInputSize() + i}.
+     * Heap and off-heap layers behave alike: writes to the returned array never reach the layer. Replace the weights
+     * with {@link #setWeights(double[])}, or single entries through the {@link Neuron} views.
+     *
+     * @return A new array holding the weights of this layer.
+     */
+    public double[] getWeights() {
+        return weights != null ? weights.clone() : weightSegment.toArray(MathUtilities.LITTLE_ENDIAN_DOUBLE);
+    }
+    
+    /**
+     * Replaces the whole weight matrix of this layer, on the heap or off-heap.
+     *
+     * @param source The layerSize x inputSize new weights in row-major order, laid out like {@link #getWeights()}.
+     * @throws IllegalArgumentException if the array does not hold one weight per neuron and input.
+     */
+    public void setWeights(double[] source) {
+        if (source.length != layerSize * inputSize) {
+            throw new IllegalArgumentException("Weight count must match the layer dimensions.");
+        }
+        if (weights != null) {
+            System.arraycopy(source, 0, weights, 0, source.length);
+        } else {
+            MemorySegment.copy(source, 0, weightSegment, MathUtilities.LITTLE_ENDIAN_DOUBLE, 0, source.length);
+        }
+    }
+    
+    /**
+     * Returns whether the weights of this layer are stored in off-heap memory.
+     *
+     * @return true if the layer was created with an {@link Arena}.
+     */
+    public boolean isOffHeap() {
+        return weights == null;
+    }
+    
+    /**
+     * Returns the off-heap weight matrix of this layer as little-endian doubles in row-major order.
+     *
+     * @return The memory holding the weights of this layer, or null if they are stored in a heap array.
+     */
+    MemorySegment weightSegment() {
+        return weightSegment;
+    }
+    
+    /**
+     * Returns the heap weight matrix of this layer without copying it, for code in this package that only reads it.
+     *
+     * @return The backing weight array of this layer, or null if the weights are stored off-heap.
+     */
+    double[] weightArray() {
+        return weights;
+    }
+    
+    /**
+     * Copies one row of the weight matrix, the weights of one neuron.
+     *
+     * @param row The index of the neuron.
+     * @param destination The array receiving the inputSize weights of the neuron.
+     */
+    void copyWeights(int row, double[] destination) {
+        if (weights != null) {
+            System.arraycopy(weights, row * inputSize, destination, 0, inputSize);
+        } else {
+            MemorySegment.copy(weightSegment, MathUtilities.LITTLE_ENDIAN_DOUBLE, rowOffset(row), destination, 0,
+                               inputSize);
+        }
+    }
+    
+    /**
+     * Returns one entry of the weight matrix.
+     *
+     * @param row The index of the neuron.
+     * @param column The index of the input.
+     * @return The weight connecting the input to the neuron.
+     */
+    double getWeight(int row, int column) {
+        Objects.checkIndex(column, inputSize);
+        return weights != null ? weights[row * inputSize + column] :
+               weightSegment.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, rowOffset(row) + (long) column * Double.BYTES);
+    }
+    
+    /**
+     * Replaces one entry of the weight matrix.
+     *
+     * @param row The index of the neuron.
+     * @param column The index of the input.
+     * @param weight The new weight connecting the input to the neuron.
+     */
+    void setWeight(int row, int column, double weight) {
+        Objects.checkIndex(column, inputSize);
+        if (weights != null) {
+            weights[row * inputSize + column] = weight;
+        } else {
+            weightSegment.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, rowOffset(row) + (long) column * Double.BYTES,
+                              weight);
+        }
+    }
+    
+    /**
+     * Replaces one row of the weight matrix, the weights of one neuron.
+     *
+     * @param row The index of the neuron.
+     * @param source The inputSize new weights of the neuron.
+     */
+    void setWeights(int row, double[] source) {
+        if (weights != null) {
+            System.arraycopy(source, 0, weights, row * inputSize, inputSize);
+        } else {
+            MemorySegment.copy(source, 0, weightSegment, MathUtilities.LITTLE_ENDIAN_DOUBLE, rowOffset(row),
+                               inputSize);
+        }
+    }
+    
+    /**
+     * Returns the bias vector of this layer.
+     *
+     * @return The backing bias array of this layer, one entry per neuron.
+     */
+    public double[] getBiases() {
+        return biases;
+    }
+    
+    /**
+     * Returns the activation function used by this layer.
+     *
+     * @return The activation function applied by every neuron of this layer.
+     */
+    public ActivationFunction getActivationFunction() {
+        return activationFunction;
     }
     
     /**
      * Returns the array of neurons in this layer.
+     * Each {@link Neuron} is a view onto one row of this layer's weight matrix and bias vector. The views are
+     * created on the first call and shared by every later call; this method is synchronized so that concurrent
+     * callers receive the same array.
      *
      * @return An array of {@link Neuron} objects representing the neurons in this layer.
      */
-    public Neuron[] getNeurons() {
+    public synchronized Neuron[] getNeurons() {
+        if (neurons == null) {
+            neurons = new Neuron[layerSize];
+            for (int i = 0; i < layerSize; i++) {
+                neurons[i] = new Neuron(this, i);
+            }
+        }
         return neurons;
     }
     
     /**
-     * Sets the neurons in this layer.
+     * Sets the neurons in this layer by copying their weights, biases and activations into this layer's storage.
      *
-     * @param neurons An array of {@link Neuron} objects to replace the current neurons.
+     * @param neurons An array of {@link Neuron} objects whose parameters replace the current ones.
      * @throws IllegalArgumentException if the new array of neurons does not match the size of the existing array.
      */
     public void setNeurons(Neuron[] neurons) {
-        if (neurons == null || neurons.length != this.neurons.length) {
+        if (neurons == null || neurons.length != layerSize) {
             throw new IllegalArgumentException("New neuron array must match the size of the existing array.");
         }
-        this.neurons = neurons;
+        Neuron[] views = getNeurons();
+        for (int j = 0; j < layerSize; j++) {
+            views[j].setWeights(neurons[j].getWeights());
+            views[j].setBias(neurons[j].getBias());
+            views[j].setActivation(neurons[j].getActivation());
+        }
     }
     
     /**
-     * Retrieves the activations from the last forward pass of this layer.
+     * Retrieves the activations recorded by the last single-input training pass of this layer.
+     * Predictions do not update them.
      *
-     * @return An array of activation values from the last forward pass.
+     * @return An array of activation values from the last training forward pass.
      */
     public double[] getActivations() {
-        double[] lastActivations = new double[neurons.length];
-        for (int i = 0; i < neurons.length; i++) {
-            lastActivations[i] = neurons[i].getActivation();
-        }
-        return lastActivations;
+        return activations.clone();
     }
     
     /**
-     * Retrieves the activations from the last batch forward pass of this layer.
+     * Returns the backing activation array of this layer, used by {@link Neuron} views.
      *
-     * @return A 2D array of activation values from the last batch forward pass.
+     * @return The activation array written by the last single-input forward pass.
      */
-    public double[][] getLastBatchActivations() {
-        return lastBatchActivations;
+    double[] activationStorage() {
+        return activations;
     }
 }
@@ -0,0 +1,51 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning the forward pass of one {@link Layer} over a batch of rows.
+ */
+@Name("neuralnetwork.LayerForward")
+@Label("Layer Forward")
+@Category({"Neural Network", "Layers"})
+@Description("Weighted sums and activations of one layer for a batch of inputs")
+final class LayerForwardEvent extends Event {
+    @Label("Layer")
+    @Description("Index of the layer in feed-forward order")
+    int layer;
+    
+    @Label("Batch Size")
+    int batchSize;
+    
+    @Label("Input Size")
+    int inputSize;
+    
+    @Label("Layer Size")
+    int layerSize;
+    
+    @Label("Bytes")
+    @Description("Bytes of parameters and activations the pass touches at least once")
+    @DataAmount
+    long bytes;
+    
+    /**
+     * Ends the event and records it if the event is enabled and over its threshold.
+     *
+     * @param index The index of the layer in feed-forward order.
+     * @param source The layer.
+     * @param rows The number of rows processed.
+     */
+    void commit(int index, Layer source, int rows) {
+        if (shouldCommit()) {
+            layer = index;
+            batchSize = rows;
+            inputSize = source.getInputSize();
+            layerSize = source.getLayerSize();
+            bytes = (long) Double.BYTES * ((long) layerSize * inputSize + (long) rows * (inputSize + layerSize));
+            commit();
+        }
+    }
+}
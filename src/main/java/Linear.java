@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 public class Linear implements ActivationFunction {
     /**
      * Computes the linear activation function.
@@ -18,4 +20,30 @@ public class Linear implements ActivationFunction {
     public double derive(double x) {
         return 1;
     }
+    
+    /**
+     * Applies the linear activation function to a range of values, which copies them unless the arrays are the same.
+     *
+     * @param inputs Array containing the input values.
+     * @param outputs Array receiving the outputs; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    public void activate(double[] inputs, double[] outputs, int from, int to) {
+        if (inputs != outputs) {
+            System.arraycopy(inputs, from, outputs, from, to - from);
+        }
+    }
+    
+    /**
+     * Computes the derivative of the linear activation function over a range of values, which is 1 everywhere.
+     *
+     * @param inputs Array containing the points at which the derivative is evaluated.
+     * @param derivatives Array receiving the derivatives; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    public void deriveInto(double[] inputs, double[] derivatives, int from, int to) {
+        Arrays.fill(derivatives, from, to, 1);
+    }
 }
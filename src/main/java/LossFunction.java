@@ -39,4 +39,27 @@ public interface LossFunction {
      * @return A 2D array of derivatives, where each inner array contains the gradients of the loss with respect to each predicted output in the batch.
      */
     double[][] derive(double[][] predicted, double[][] target);
+    
+    /**
+     * Calculates the loss of the softmax of a row of output-layer scores and writes the error terms that the output
+     * layer back-propagates. The default implementation applies softmax and then {@link #calculateLoss(double[],
+     * double[])} and {@link #derive(double[], double[])}; loss functions with a closed-form gradient with respect to
+     * the scores override it with a single fused pass.
+     *
+     * @param scores Array containing the scores of the output layer.
+     * @param scoresOffset Index of the first score of the row.
+     * @param target An array of actual target values.
+     * @param errors Array receiving the error terms of the row.
+     * @param errorsOffset Index of the first error term of the row.
+     * @param length The number of outputs.
+     * @return The loss of the row.
+     */
+    default double calculateSoftmaxLoss(double[] scores, int scoresOffset, double[] target, double[] errors,
+                                        int errorsOffset, int length) {
+        double[] probabilities = new double[length];
+        System.arraycopy(scores, scoresOffset, probabilities, 0, length);
+        MathUtilities.softmax(probabilities, probabilities);
+        System.arraycopy(derive(probabilities, target), 0, errors, errorsOffset, length);
+        return calculateLoss(probabilities, target);
+    }
 }
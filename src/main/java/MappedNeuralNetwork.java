@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An inference-only view of a model file written by {@link NeuralNetwork#save(String)} that runs predictions directly
+ * against the memory-mapped weights instead of copying them onto the heap. Opening a model costs one header read and
+ * one mapping regardless of its size, and every process that maps the same file shares one copy of the weights in
+ * the operating system's page cache. Pages are read from disk the first time a prediction touches them.
+ * Predictions are thread-safe. Closing the network unmaps the file; predictions after that fail with an
+ * {@link IllegalStateException}.
+ */
+public class MappedNeuralNetwork implements AutoCloseable {
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int[] layerSizes;
+    private final int[] inputSizes;
+    private final long[] weightOffsets;
+    private final long[] biasOffsets;
+    private final ActivationFunction[] activationFunctions;
+    private final ActivationFunction activationFunction;
+    private final LossFunction lossFunction;
+    private final ThreadLocal<double[][]> workspaces = ThreadLocal.withInitial(this::createActivations);
+    
+    private MappedNeuralNetwork(Arena arena, MemorySegment segment, ModelFile.Header header) {
+        this.arena = arena;
+        this.segment = segment;
+        int layerCount = header.layerSizes.length;
+        this.layerSizes = header.layerSizes.clone();
+        this.inputSizes = new int[layerCount];
+        this.weightOffsets = new long[layerCount];
+        this.biasOffsets = new long[layerCount];
+        this.activationFunctions = new ActivationFunction[layerCount];
+        this.activationFunction = header.activationFunction;
+        this.lossFunction = header.lossFunction;
+        for (int i = 0; i < layerCount; i++) {
+            inputSizes[i] = header.layerInputSize(i);
+            weightOffsets[i] = header.blockOffset(i);
+            biasOffsets[i] = weightOffsets[i] + (long) Double.BYTES * layerSizes[i] * inputSizes[i];
+            activationFunctions[i] = header.layerActivationFunction(i);
+        }
+    }
+    
+    /**
+     * Maps a model file for inference.
+     *
+     * @param filename The name of a file written by {@link NeuralNetwork#save(String)}.
+     * @return The mapped network, which must be closed to unmap the file.
+     * @throws IOException if an I/O error occurs while mapping the file, or it is not a supported model file.
+     */
+    public static MappedNeuralNetwork load(String filename) throws IOException {
+        ModelLoadEvent event = new ModelLoadEvent();
+        event.begin();
+        Path path = Path.of(filename);
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ModelFile.Header header = ModelFile.readHeader(channel, path);
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            event.commit(path, segment.byteSize(), true);
+            return new MappedNeuralNetwork(arena, segment, header);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Predicts the output for a single input.
+     *
+     * @param inputs The input values.
+     * @return The output values as predicted by the network.
+     */
+    public double[] predict(double[] inputs) {
+        double[] outputs = new double[getOutputSize()];
+        predict(inputs, outputs);
+        return outputs;
+    }
+    
+    /**
+     * Predicts the output for a single input into a caller-supplied array, using activation buffers owned by the
+     * calling thread. After a thread's first call this allocates nothing.
+     *
+     * @param inputs The input values.
+     * @param outputs The array receiving the output values; must have one entry per output neuron.
+     */
+    public void predict(double[] inputs, double[] outputs) {
+        if (inputs.length != inputSizes[0]) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        double[][] activations = workspaces.get();
+        double[] layerInputs = inputs;
+        for (int i = 0; i < layerSizes.length; i++) {
+            double[] layerOutputs = activations[i];
+            int inputSize = inputSizes[i];
+            ActivationFunction layerActivation = activationFunctions[i];
+            for (int j = 0; j < layerSizes[i]; j++) {
+                long row = weightOffsets[i] + (long) j * inputSize * Double.BYTES;
+                long biasOffset = biasOffsets[i] + (long) j * Double.BYTES;
+                double bias = segment.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, biasOffset);
+                layerOutputs[j] = MathUtilities.dotProduct(segment, row, layerInputs, 0, inputSize) + bias;
+            }
+            layerActivation.activate(layerOutputs, layerOutputs, 0, layerSizes[i]);
+            layerInputs = layerOutputs;
+        }
+        MathUtilities.softmax(layerInputs, outputs);
+    }
+    
+    /**
+     * Predicts the output for multiple inputs, one input at a time.
+     *
+     * @param inputs The array of input values.
+     * @return The array of output values as predicted by the network.
+     */
+    public double[][] predict(double[][] inputs) {
+        double[][] outputs = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            outputs[i] = predict(inputs[i]);
+        }
+        return outputs;
+    }
+    
+    /**
+     * Copies the mapped weights onto the heap as a trainable network.
+     *
+     * @return A new network with the same parameters and functions.
+     */
+    public NeuralNetwork toNeuralNetwork() {
+        Layer[] layers = new Layer[layerSizes.length];
+        for (int i = 0; i < layers.length; i++) {
+            double[] weights = segment.asSlice(weightOffsets[i], (long) Double.BYTES * layerSizes[i] * inputSizes[i])
+                                      .toArray(MathUtilities.LITTLE_ENDIAN_DOUBLE);
+            double[] biases = segment.asSlice(biasOffsets[i], (long) Double.BYTES * layerSizes[i])
+                                     .toArray(MathUtilities.LITTLE_ENDIAN_DOUBLE);
+            layers[i] = new Layer(layerSizes[i], inputSizes[i], activationFunctions[i], weights, biases);
+        }
+        return new NeuralNetwork(layers, activationFunction, lossFunction);
+    }
+    
+    /**
+     * Returns the number of inputs of the network.
+     *
+     * @return The input size of the first layer.
+     */
+    public int getInputSize() {
+        return inputSizes[0];
+    }
+    
+    /**
+     * Returns the number of outputs of the network.
+     *
+     * @return The size of the output layer.
+     */
+    public int getOutputSize() {
+        return layerSizes[layerSizes.length - 1];
+    }
+    
+    /**
+     * Unmaps the model file. Must not be called while other threads are predicting.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+    
+    private double[][] createActivations() {
+        double[][] activations = new double[layerSizes.length][];
+        for (int i = 0; i < layerSizes.length; i++) {
+            activations[i] = new double[layerSizes[i]];
+        }
+        return activations;
+    }
+}
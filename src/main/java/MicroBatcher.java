@@ -0,0 +1,204 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces single predictions submitted by many threads into batches for {@link NeuralNetwork#predict(double[][])}.
+ * Each worker thread takes the oldest waiting request, then gathers further requests until the batch holds
+ * maxBatchSize inputs or maxWait has passed since the first was taken, runs the batch and completes every request's
+ * future with its row of the output. Under light load a request waits at most maxWait; under heavy load batches fill
+ * immediately and the per-request cost of the forward pass falls with the batch size. The queue holds at most
+ * capacity requests; further submissions are handled according to an {@link OverloadPolicy}.
+ */
+final class MicroBatcher implements AutoCloseable {
+    private final NeuralNetwork network;
+    private final int inputSize;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final OverloadPolicy policy;
+    private final BlockingQueue<Request> queue;
+    private final Thread[] workers;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+    private volatile boolean closed;
+    
+    /**
+     * Constructs a batcher and starts its workers.
+     *
+     * @param network The network to predict with.
+     * @param maxBatchSize The largest number of inputs run as one batch.
+     * @param maxWait The longest time the first request of a batch waits for others to join it.
+     * @param capacity The largest number of requests waiting in the queue.
+     * @param workerCount The number of threads running batches.
+     * @param policy What to do with a request submitted while the queue is full.
+     * @throws IllegalArgumentException if the batch size, capacity or worker count is not positive or the wait is
+     *                                  negative.
+     */
+    MicroBatcher(NeuralNetwork network, int maxBatchSize, Duration maxWait, int capacity, int workerCount,
+                 OverloadPolicy policy) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive.");
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait must not be negative.");
+        }
+        if (capacity < 1 || workerCount < 1) {
+            throw new IllegalArgumentException("Queue capacity and number of workers must be positive.");
+        }
+        this.network = network;
+        this.inputSize = network.getLayers()[0].getInputSize();
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.policy = policy;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = Thread.ofPlatform().name("micro-batcher-" + i).daemon().start(this::run);
+        }
+    }
+    
+    /**
+     * Queues one input for a coming batch. Never blocks.
+     *
+     * @param inputs The input values; must not be modified until the future completes.
+     * @return A future completed with the output values; completed exceptionally with the exception of the batch if
+     *         it fails, or with a {@link RejectedExecutionException} if the request is rejected or dropped because
+     *         the queue is full or the batcher is closed.
+     * @throws IllegalArgumentException if the input size does not match the network, which would fail the whole
+     *                                  batch.
+     */
+    CompletableFuture<double[]> submit(double[] inputs) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        submitted.increment();
+        Request request = new Request(inputs, new CompletableFuture<>(), System.nanoTime());
+        if (closed) {
+            reject(request, "The predictor is closed.");
+            return request.result;
+        }
+        while (!queue.offer(request)) {
+            if (policy == OverloadPolicy.REJECT) {
+                reject(request, "The prediction queue is full.");
+                return request.result;
+            }
+            Request oldest = queue.poll();
+            if (oldest != null) {
+                dropped.increment();
+                oldest.result.completeExceptionally(
+                        new RejectedExecutionException("Dropped from a full prediction queue."));
+            }
+        }
+        // The workers drain the queue only after close() sets the flag, so fail a request that raced with it
+        if (closed && queue.remove(request)) {
+            reject(request, "The predictor is closed.");
+        }
+        return request.result;
+    }
+    
+    private void reject(Request request, String message) {
+        rejected.increment();
+        request.result.completeExceptionally(new RejectedExecutionException(message));
+    }
+    
+    private void run() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                predict(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Interrupted by close()
+        }
+        for (Request request : batch) {
+            reject(request, "The predictor is closed.");
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            reject(request, "The predictor is closed.");
+        }
+    }
+    
+    private void predict(List<Request> batch) {
+        double[][] inputs = new double[batch.size()][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = batch.get(i).inputs;
+        }
+        long startTime = System.nanoTime();
+        try {
+            double[][] outputs = network.predict(inputs);
+            long duration = System.nanoTime() - startTime;
+            for (int i = 0; i < outputs.length; i++) {
+                Request request = batch.get(i);
+                waitNanos.add(startTime - request.submitTime);
+                request.result.complete(outputs[i]);
+            }
+            completed.add(outputs.length);
+            serviceNanos.add(duration * outputs.length);
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            for (Request request : batch) {
+                request.result.completeExceptionally(e);
+            }
+        }
+        batches.increment();
+    }
+    
+    /**
+     * Returns a snapshot of the counters of this batcher. The counters are read one after another while predictions
+     * continue, so each is exact but they may disagree slightly with each other.
+     *
+     * @return The current metrics.
+     */
+    PredictorMetrics metrics() {
+        return new PredictorMetrics(queue.size(), submitted.sum(), completed.sum(), failed.sum(), rejected.sum(),
+                                    dropped.sum(), batches.sum(), waitNanos.sum(), serviceNanos.sum());
+    }
+    
+    /**
+     * Stops the workers, failing every request that has not been run yet. Waits for batches in progress to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private record Request(double[] inputs, CompletableFuture<double[]> result, long submitTime) {
+    }
+}
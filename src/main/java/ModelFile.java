@@ -0,0 +1,349 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes the binary model format used by {@link NeuralNetwork#save(String)} and
+ * {@link NeuralNetwork#load(String)}. All values are little-endian. A file starts with a header of 32-bit integers:
+ * the magic number {@code "MLPN"}, the format version, the identifiers of the hidden activation function and the
+ * loss function, the input size, the number of layers and the size of every layer. The header is padded with zeros
+ * to a multiple of eight bytes, and is followed by one block per layer holding its row-major weight matrix and then
+ * its bias vector as doubles, so every block is aligned for eight-byte loads.
+ */
+final class ModelFile {
+    static final int MAGIC = 'M' | 'L' << 8 | 'P' << 16 | 'N' << 24;
+    static final int VERSION = 1;
+    private static final int PREFIX_BYTES = 6 * Integer.BYTES;
+    private static final int CHUNK_BYTES = 1 << 20;
+    
+    private ModelFile() {
+    }
+    
+    /**
+     * Writes a network to a file, replacing any existing file.
+     *
+     * @param network The network to write.
+     * @param path The file to write.
+     * @throws IOException if an I/O error occurs while writing the file.
+     */
+    static void write(NeuralNetwork network, Path path) throws IOException {
+        ModelSaveEvent event = new ModelSaveEvent();
+        event.begin();
+        Layer[] layers = network.getLayers();
+        ByteBuffer header = ByteBuffer.allocate((int) headerBytes(layers.length)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+              .putInt(VERSION)
+              .putInt(activationId(network.getActivationFunction()))
+              .putInt(lossId(network.getLossFunction()))
+              .putInt(layers[0].getInputSize())
+              .putInt(layers.length);
+        for (Layer layer : layers) {
+            header.putInt(layer.getLayerSize());
+        }
+        header.rewind();
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (Layer layer : layers) {
+                if (layer.isOffHeap()) {
+                    writeDoubles(channel, buffer, layer.weightSegment());
+                } else {
+                    writeDoubles(channel, buffer, layer.weightArray());
+                }
+                writeDoubles(channel, buffer, layer.getBiases());
+            }
+            event.commit(path, channel.position());
+        }
+    }
+    
+    /**
+     * Reads a network from a file.
+     *
+     * @param path The file to read.
+     * @return The network stored in the file.
+     * @throws IOException if the file cannot be read or is not a model file of a supported version.
+     */
+    static NeuralNetwork read(Path path) throws IOException {
+        ModelLoadEvent event = new ModelLoadEvent();
+        event.begin();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, path);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            Layer[] layers = new Layer[header.layerSizes.length];
+            for (int i = 0; i < layers.length; i++) {
+                int layerSize = header.layerSizes[i];
+                int inputSize = header.layerInputSize(i);
+                double[] weights = new double[layerSize * inputSize];
+                double[] biases = new double[layerSize];
+                readDoubles(channel, buffer, weights);
+                readDoubles(channel, buffer, biases);
+                layers[i] = new Layer(layerSize, inputSize, header.layerActivationFunction(i), weights, biases);
+            }
+            event.commit(path, channel.size(), false);
+            return new NeuralNetwork(layers, header.activationFunction, header.lossFunction);
+        }
+    }
+    
+    /**
+     * Reads and validates the header of a model file, leaving the channel positioned at the first parameter block.
+     *
+     * @param channel A channel positioned at the start of the file.
+     * @param path The file, for error messages.
+     * @return The parsed header.
+     * @throws IOException if the file is not a model file of a supported version, a layer has more weights than an
+     *                     array can hold, or the file size does not match the topology in its header.
+     */
+    static Header readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, prefix);
+        if (prefix.getInt() != MAGIC) {
+            throw new IOException("Not a model file: " + path);
+        }
+        int version = prefix.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported model file version " + version + ".");
+        }
+        ActivationFunction activationFunction = activationFunction(prefix.getInt());
+        LossFunction lossFunction = lossFunction(prefix.getInt());
+        int inputSize = prefix.getInt();
+        int layerCount = prefix.getInt();
+        if (inputSize < 1 || layerCount < 1) {
+            throw new IOException("Corrupt model file header.");
+        }
+        // Every layer stores its size in the header, so a count the file cannot hold is rejected before allocating
+        if (layerCount > (channel.size() - PREFIX_BYTES) / Integer.BYTES) {
+            throw new IOException("Model file size does not match its header: " + path);
+        }
+        
+        long sizesBytes = headerBytes(layerCount) - PREFIX_BYTES;
+        if (sizesBytes > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt model file header.");
+        }
+        ByteBuffer sizes = ByteBuffer.allocate((int) sizesBytes).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, sizes);
+        int[] layerSizes = new int[layerCount];
+        for (int i = 0; i < layerCount; i++) {
+            layerSizes[i] = sizes.getInt();
+            if (layerSizes[i] < 1) {
+                throw new IOException("Corrupt model file header.");
+            }
+        }
+        Header header = new Header(activationFunction, lossFunction, inputSize, layerSizes);
+        for (int i = 0; i < layerCount; i++) {
+            if ((long) layerSizes[i] * header.layerInputSize(i) > Integer.MAX_VALUE - 8) {
+                throw new IOException("Layer " + i + " has more weights than an array can hold: " + path);
+            }
+        }
+        long fileBytes;
+        try {
+            fileBytes = header.fileBytes();
+        } catch (ArithmeticException e) {
+            throw new IOException("Corrupt model file header.", e);
+        }
+        if (channel.size() != fileBytes) {
+            throw new IOException("Model file size does not match its header: " + path);
+        }
+        return header;
+    }
+    
+    /**
+     * Returns the size of the header, including padding, of a file holding the given number of layers.
+     *
+     * @param layerCount The number of layers.
+     * @return The offset of the first parameter block in bytes.
+     */
+    static long headerBytes(int layerCount) {
+        return (PREFIX_BYTES + (long) layerCount * Integer.BYTES + 7) & ~7L;
+    }
+    
+    /**
+     * Returns the identifier stored in model files for an activation function.
+     *
+     * @param activationFunction One of the activation functions of this library.
+     * @return The identifier of the function.
+     * @throws IllegalArgumentException if the function has no identifier.
+     */
+    static int activationId(ActivationFunction activationFunction) {
+        return switch (activationFunction) {
+            case ReLU f -> 1;
+            case LeakyReLU f -> 2;
+            case Sigmoid f -> 3;
+            case Tanh f -> 4;
+            case Linear f -> 5;
+            case FastSigmoid f -> 6;
+            case FastTanh f -> 7;
+            default -> throw new IllegalArgumentException(
+                    "Unsupported activation function: " + activationFunction.getClass().getName());
+        };
+    }
+    
+    /**
+     * Creates the activation function with the given identifier.
+     *
+     * @param id An identifier returned by {@link #activationId(ActivationFunction)}.
+     * @return A new instance of the activation function.
+     * @throws IOException if the identifier is unknown.
+     */
+    static ActivationFunction activationFunction(int id) throws IOException {
+        return switch (id) {
+            case 1 -> new ReLU();
+            case 2 -> new LeakyReLU();
+            case 3 -> new Sigmoid();
+            case 4 -> new Tanh();
+            case 5 -> new Linear();
+            case 6 -> new FastSigmoid();
+            case 7 -> new FastTanh();
+            default -> throw new IOException("Unknown activation function identifier " + id + ".");
+        };
+    }
+    
+    /**
+     * Returns the identifier stored in model files for a loss function.
+     *
+     * @param lossFunction One of the loss functions of this library.
+     * @return The identifier of the function.
+     * @throws IllegalArgumentException if the function has no identifier.
+     */
+    static int lossId(LossFunction lossFunction) {
+        return switch (lossFunction) {
+            case CrossEntropyLoss f -> 1;
+            case MeanSquaredError f -> 2;
+            default -> throw new IllegalArgumentException(
+                    "Unsupported loss function: " + lossFunction.getClass().getName());
+        };
+    }
+    
+    /**
+     * Creates the loss function with the given identifier.
+     *
+     * @param id An identifier returned by {@link #lossId(LossFunction)}.
+     * @return A new instance of the loss function.
+     * @throws IOException if the identifier is unknown.
+     */
+    static LossFunction lossFunction(int id) throws IOException {
+        return switch (id) {
+            case 1 -> new CrossEntropyLoss();
+            case 2 -> new MeanSquaredError();
+            default -> throw new IOException("Unknown loss function identifier " + id + ".");
+        };
+    }
+    
+    /**
+     * Writes an array of doubles through a reusable little-endian staging buffer.
+     */
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        int capacity = buffer.capacity() / Double.BYTES;
+        for (int offset = 0; offset < values.length; offset += capacity) {
+            int count = Math.min(capacity, values.length - offset);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, offset, count);
+            buffer.limit(count * Double.BYTES);
+            writeFully(channel, buffer);
+        }
+    }
+    
+    /**
+     * Writes a segment of little-endian doubles through a reusable staging buffer, so off-heap weights are written
+     * without first being copied onto the heap.
+     */
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, MemorySegment values) throws IOException {
+        MemorySegment staging = MemorySegment.ofBuffer(buffer.clear());
+        long size = values.byteSize();
+        for (long offset = 0; offset < size; offset += buffer.capacity()) {
+            int count = (int) Math.min(buffer.capacity(), size - offset);
+            MemorySegment.copy(values, offset, staging, 0, count);
+            buffer.clear().limit(count);
+            writeFully(channel, buffer);
+        }
+    }
+    
+    /**
+     * Fills an array of doubles through a reusable little-endian staging buffer with bulk {@code DoubleBuffer} reads.
+     */
+    private static void readDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        int capacity = buffer.capacity() / Double.BYTES;
+        for (int offset = 0; offset < values.length; offset += capacity) {
+            int count = Math.min(capacity, values.length - offset);
+            buffer.clear().limit(count * Double.BYTES);
+            readFully(channel, buffer);
+            buffer.asDoubleBuffer().get(values, offset, count);
+        }
+    }
+    
+    /**
+     * The topology and functions recorded in the header of a model file.
+     */
+    static final class Header {
+        final ActivationFunction activationFunction;
+        final LossFunction lossFunction;
+        final int inputSize;
+        final int[] layerSizes;
+        
+        Header(ActivationFunction activationFunction, LossFunction lossFunction, int inputSize, int[] layerSizes) {
+            this.activationFunction = activationFunction;
+            this.lossFunction = lossFunction;
+            this.inputSize = inputSize;
+            this.layerSizes = layerSizes;
+        }
+        
+        /**
+         * Returns the number of inputs of a layer, which is the size of the layer before it.
+         */
+        int layerInputSize(int layer) {
+            return layer == 0 ? inputSize : layerSizes[layer - 1];
+        }
+        
+        /**
+         * Returns the activation function of a layer; the output layer is always linear.
+         */
+        ActivationFunction layerActivationFunction(int layer) {
+            return layer < layerSizes.length - 1 ? activationFunction : new Linear();
+        }
+        
+        /**
+         * Returns the offset in bytes of a layer's weight block; its bias block follows the weights.
+         *
+         * @throws ArithmeticException if the offset of a corrupt header overflows a long.
+         */
+        long blockOffset(int layer) {
+            long offset = headerBytes(layerSizes.length);
+            for (int i = 0; i < layer; i++) {
+                long blockBytes = Math.multiplyExact((long) Double.BYTES * layerSizes[i], layerInputSize(i) + 1L);
+                offset = Math.addExact(offset, blockBytes);
+            }
+            return offset;
+        }
+        
+        /**
+         * Returns the size in bytes of a file with this header.
+         */
+        long fileBytes() {
+            return blockOffset(layerSizes.length);
+        }
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Reads until the buffer is full and rewinds it.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of model file.");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,43 @@
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning the reading or mapping of a model file in the format of {@link ModelFile}.
+ */
+@Name("neuralnetwork.ModelLoad")
+@Label("Model Load")
+@Category({"Neural Network", "Model Files"})
+@Description("Reading or mapping of a model file")
+final class ModelLoadEvent extends Event {
+    @Label("Path")
+    String path;
+    
+    @Label("Size")
+    @DataAmount
+    long bytes;
+    
+    @Label("Mapped")
+    @Description("Whether the file was memory-mapped instead of copied onto the heap")
+    boolean mapped;
+    
+    /**
+     * Ends the event and records it if the event is enabled and over its threshold.
+     *
+     * @param file The file that was read.
+     * @param size The size of the file in bytes.
+     * @param isMapped Whether the file was memory-mapped.
+     */
+    void commit(Path file, long size, boolean isMapped) {
+        if (shouldCommit()) {
+            path = file.toString();
+            bytes = size;
+            mapped = isMapped;
+            commit();
+        }
+    }
+}
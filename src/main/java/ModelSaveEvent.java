@@ -0,0 +1,37 @@
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning the writing of a model file in the format of {@link ModelFile}.
+ */
+@Name("neuralnetwork.ModelSave")
+@Label("Model Save")
+@Category({"Neural Network", "Model Files"})
+@Description("Writing of a model file")
+final class ModelSaveEvent extends Event {
+    @Label("Path")
+    String path;
+    
+    @Label("Size")
+    @DataAmount
+    long bytes;
+    
+    /**
+     * Ends the event and records it if the event is enabled and over its threshold.
+     *
+     * @param file The file that was written.
+     * @param size The size of the file in bytes.
+     */
+    void commit(Path file, long size) {
+        if (shouldCommit()) {
+            path = file.toString();
+            bytes = size;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Stochastic gradient descent with momentum, optionally with Nesterov's look-ahead. Every parameter keeps a velocity
+ * that accumulates its past gradients, {@code v = momentum * v + g}; the parameter moves by {@code learningRate * v},
+ * or by {@code learningRate * (g + momentum * v)} with Nesterov momentum.
+ */
+public class Momentum implements Optimizer {
+    private final double momentum;
+    private final boolean nesterov;
+    
+    /**
+     * Constructs classical momentum with a coefficient of 0.9.
+     */
+    public Momentum() {
+        this(0.9, false);
+    }
+    
+    /**
+     * Constructs momentum with the given coefficient.
+     *
+     * @param momentum The fraction of the velocity kept from one step to the next, in [0, 1).
+     * @param nesterov Whether to use Nesterov momentum.
+     */
+    public Momentum(double momentum, boolean nesterov) {
+        if (momentum < 0 || momentum >= 1) {
+            throw new IllegalArgumentException("Momentum must be in [0, 1).");
+        }
+        this.momentum = momentum;
+        this.nesterov = nesterov;
+    }
+    
+    @Override
+    public int stateSize() {
+        return 1;
+    }
+    
+    @Override
+    public void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                       double[][] state, int stateOffset, int length, double gradientScale, double learningRate,
+                       long step) {
+        double[] velocity = state[0];
+        if (nesterov) {
+            for (int i = 0; i < length; i++) {
+                double gradient = gradientScale * gradients[gradientOffset + i];
+                double v = momentum * velocity[stateOffset + i] + gradient;
+                velocity[stateOffset + i] = v;
+                parameters[parameterOffset + i] -= learningRate * (gradient + momentum * v);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                double v = momentum * velocity[stateOffset + i] + gradientScale * gradients[gradientOffset + i];
+                velocity[stateOffset + i] = v;
+                parameters[parameterOffset + i] -= learningRate * v;
+            }
+        }
+    }
+    
+    @Override
+    public void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients, long gradientOffset,
+                       MemorySegment[] state, long stateOffset, int length, double gradientScale,
+                       double learningRate, long step) {
+        MemorySegment velocity = state[0];
+        long p = parameterOffset;
+        long g = gradientOffset;
+        long s = stateOffset;
+        for (int i = 0; i < length; i++, p += Double.BYTES, g += Double.BYTES, s += Double.BYTES) {
+            double gradient = gradientScale * gradients.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, g);
+            double v = momentum * velocity.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, s) + gradient;
+            velocity.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, s, v);
+            double change = nesterov ? gradient + momentum * v : v;
+            double parameter = parameters.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, p) - learningRate * change;
+            parameters.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, p, parameter);
+        }
+    }
+}
@@ -1,16 +1,38 @@
-import java.io.*;
-import java.util.Arrays;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Represents a feed-forward neural network with multiple layers including an output layer with a linear activation function.
  * The network is capable of training on batch and incremental data, using backpropagation to update weights.
+ * Prediction keeps all intermediate state in per-call or per-thread buffers, so one network can serve predictions
+ * from any number of threads at once. Training mutates the weights and must not run concurrently with other calls.
+ * A network created with {@link ParameterStorage#OFF_HEAP} keeps its weights in native memory and must be closed to
+ * release it; closing a heap network does nothing. Training progress is reported to {@link TrainingListener}s,
+ * initially a single {@link ConsoleTrainingReporter}.
  */
-public class NeuralNetwork implements Serializable {
+public class NeuralNetwork implements AutoCloseable {
     private Layer[] layers;
     private final ActivationFunction activationFunction;
     private final ActivationFunction OUTPUT_ACTIVATION = new Linear();
     private final LossFunction lossFunction;
+    private final Arena arena;
+    private Optimizer optimizer = new SGD();
+    private OptimizerState[] optimizerStates;
+    private Arena optimizerArena;
+    private Random random = new Random();
+    private final List<TrainingListener> listeners = new CopyOnWriteArrayList<>(List.of(new ConsoleTrainingReporter()));
+    private final ThreadLocal<InferenceWorkspace> workspaces = new ThreadLocal<>();
     
     /**
      * Constructs a NeuralNetwork with specified layer sizes and activation functions.
@@ -23,11 +45,42 @@ public class NeuralNetwork implements Serializable {
      */
     public NeuralNetwork(int inputSize, int[] hiddenLayers, int outputSize, ActivationFunction activationFunction,
                          LossFunction lossFunction) {
+        this(inputSize, hiddenLayers, outputSize, activationFunction, lossFunction, ParameterStorage.HEAP);
+    }
+    
+    /**
+     * Constructs a NeuralNetwork with specified layer sizes and activation functions, keeping its weights in the
+     * given storage.
+     *
+     * @param inputSize The number of neurons in the input layer.
+     * @param hiddenLayers An array containing the sizes of each hidden layer.
+     * @param outputSize The number of neurons in the output layer.
+     * @param activationFunction The activation function for all layers except the output layer.
+     * @param lossFunction The loss function to use during training.
+     * @param storage Where the weight matrices are stored.
+     */
+    public NeuralNetwork(int inputSize, int[] hiddenLayers, int outputSize, ActivationFunction activationFunction,
+                         LossFunction lossFunction, ParameterStorage storage) {
         this.activationFunction = activationFunction;
         this.lossFunction = lossFunction;
+        this.arena = storage == ParameterStorage.OFF_HEAP ? Arena.ofShared() : null;
         createLayers(inputSize, hiddenLayers, outputSize);
     }
     
+    /**
+     * Constructs a NeuralNetwork from existing layers, for example ones read from a model file.
+     *
+     * @param layers The layers in feed-forward order, ending with the linear output layer.
+     * @param activationFunction The activation function of the hidden layers.
+     * @param lossFunction The loss function to use during training.
+     */
+    NeuralNetwork(Layer[] layers, ActivationFunction activationFunction, LossFunction lossFunction) {
+        this.layers = layers;
+        this.activationFunction = activationFunction;
+        this.lossFunction = lossFunction;
+        this.arena = null;
+    }
+    
     /**
      * Initializes the layers of the network.
      *
@@ -39,15 +92,21 @@ public class NeuralNetwork implements Serializable {
         layers = new Layer[hiddenLayers.length + 1];  // + 1 for output layer
         int previousLayerSize = inputSize;
         for (int i = 0; i < hiddenLayers.length; i++) {
-            layers[i] = new Layer(hiddenLayers[i], previousLayerSize, activationFunction);
+            layers[i] = createLayer(hiddenLayers[i], previousLayerSize, activationFunction);
             previousLayerSize = hiddenLayers[i];
         }
         
-        this.layers[hiddenLayers.length] = new Layer(outputSize, previousLayerSize, OUTPUT_ACTIVATION);
+        this.layers[hiddenLayers.length] = createLayer(outputSize, previousLayerSize, OUTPUT_ACTIVATION);
+    }
+    
+    private Layer createLayer(int layerSize, int inputSize, ActivationFunction activationFunction) {
+        return arena != null ? new Layer(layerSize, inputSize, activationFunction, arena)
+                             : new Layer(layerSize, inputSize, activationFunction);
     }
     
     /**
      * Trains the neural network using provided input data and expected outputs.
+     * The data is copied once into a {@link Dataset}, so the arrays are neither reordered nor modified.
      *
      * @param inputs The input data for training.
      * @param expectedOutputs The expected output data for training.
@@ -55,18 +114,142 @@ public class NeuralNetwork implements Serializable {
      * @param learningRate The learning rate used for training.
      */
     public void train(double[][] inputs, double[][] expectedOutputs, int epochs, double learningRate) {
+        train(new Dataset(inputs, expectedOutputs), epochs, learningRate);
+    }
+    
+    /**
+     * Trains the neural network one example at a time, visiting the examples in a new random order every epoch.
+     *
+     * @param dataset The training data; its order is shuffled.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     */
+    public void train(Dataset dataset, int epochs, double learningRate) {
+        checkDataset(dataset);
+        double[] data = dataset.data();
+        double[] inputs = new double[dataset.getInputSize()];
+        double[] targets = new double[dataset.getOutputSize()];
+        int size = dataset.size();
         for (int epoch = 0; epoch < epochs; epoch++) {
-            scrambleData(inputs, expectedOutputs);
+            EpochEvent epochEvent = new EpochEvent();
+            epochEvent.begin();
+            epochStarted(epoch + 1, epochs);
+            dataset.shuffle(random);
             double totalLoss = 0;
+            long forwardNanos = 0;
+            long backwardNanos = 0;
+            long startTime = System.nanoTime();
+            long startAllocation = Allocations.currentThread();
             
-            for (int i = 0; i < inputs.length; i++) {
-                double[] output = predict(inputs[i]);
-                backPropagate(expectedOutputs[i], output, inputs[i], learningRate);
-                totalLoss += lossFunction.calculateLoss(output, expectedOutputs[i]);
+            for (int i = 0; i < size; i++) {
+                long sampleStart = System.nanoTime();
+                System.arraycopy(data, dataset.inputOffset(i), inputs, 0, inputs.length);
+                System.arraycopy(data, dataset.outputOffset(i), targets, 0, targets.length);
+                double[] output = trainingForward(inputs);
+                totalLoss += lossFunction.calculateSoftmaxLoss(output, 0, targets, output, 0, output.length);
+                long forwardEnd = System.nanoTime();
+                backPropagate(output, inputs, learningRate);
+                forwardNanos += forwardEnd - sampleStart;
+                backwardNanos += System.nanoTime() - forwardEnd;
             }
             
-            double averageLoss = totalLoss / inputs.length;
-            System.out.println("Epoch " + (epoch + 1) + ": Loss = " + averageLoss);
+            epochFinished(epochEvent, new EpochMetrics(epoch + 1, epochs, size, totalLoss / size,
+                                                       System.nanoTime() - startTime, forwardNanos, backwardNanos, 0,
+                                                       Allocations.currentThread() - startAllocation));
+        }
+    }
+    
+    /**
+     * Trains the neural network one example at a time on several threads without locking, in the style of
+     * Hogwild! asynchronous stochastic gradient descent. Every epoch the shuffled data is split into one contiguous
+     * partition per thread, and each thread updates the shared weights after every example while keeping its
+     * activations in its own buffers. Updates from different threads may overwrite each other; this costs little
+     * accuracy when updates are sparse or small and removes all synchronization from the inner loop.
+     * Unlike {@link #train(double[][], double[][], int, double)}, the activations are not recorded on the layers.
+     * The data is copied once into a {@link Dataset}, so the arrays are neither reordered nor modified.
+     *
+     * @param inputs The input data for training.
+     * @param expectedOutputs The expected output data for training.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param threads The number of threads updating the weights concurrently.
+     */
+    public void trainHogwild(double[][] inputs, double[][] expectedOutputs, int epochs, double learningRate,
+                             int threads) {
+        trainHogwild(new Dataset(inputs, expectedOutputs), epochs, learningRate, threads);
+    }
+    
+    /**
+     * Trains the neural network one example at a time on several threads without locking, as described for
+     * {@link #trainHogwild(double[][], double[][], int, double, int)}.
+     *
+     * @param dataset The training data; its order is shuffled.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param threads The number of threads updating the weights concurrently.
+     */
+    public void trainHogwild(Dataset dataset, int epochs, double learningRate, int threads) {
+        checkDataset(dataset);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        TrainingWorkspace[] states = new TrainingWorkspace[threads];
+        for (int i = 0; i < threads; i++) {
+            states[i] = new TrainingWorkspace(layers, 1);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        
+        try {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                EpochEvent epochEvent = new EpochEvent();
+                epochEvent.begin();
+                epochStarted(epoch + 1, epochs);
+                dataset.shuffle(random);
+                long startTime = System.nanoTime();
+                long startAllocation = Allocations.currentThread();
+                List<Callable<Double>> tasks = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    TrainingWorkspace state = states[t];
+                    state.resetTimings();
+                    int start = (int) ((long) dataset.size() * t / threads);
+                    int end = (int) ((long) dataset.size() * (t + 1) / threads);
+                    tasks.add(() -> {
+                        long taskAllocation = Allocations.currentThread();
+                        double loss = 0;
+                        for (int i = start; i < end; i++) {
+                            loss += state.trainSample(dataset, i, learningRate, lossFunction);
+                        }
+                        state.addAllocatedBytes(Allocations.currentThread() - taskAllocation);
+                        return loss;
+                    });
+                }
+                
+                double totalLoss = 0;
+                try {
+                    for (Future<Double> loss : executor.invokeAll(tasks)) {
+                        totalLoss += loss.get();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Training was interrupted.", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A training worker failed.", e.getCause());
+                }
+                long duration = System.nanoTime() - startTime;
+                long forwardNanos = 0;
+                long backwardNanos = 0;
+                long allocatedBytes = Allocations.currentThread() - startAllocation;
+                for (TrainingWorkspace state : states) {
+                    forwardNanos += state.forwardNanos();
+                    backwardNanos += state.backwardNanos();
+                    allocatedBytes += state.allocatedBytes();
+                }
+                epochFinished(epochEvent, new EpochMetrics(epoch + 1, epochs, dataset.size(),
+                                                           totalLoss / dataset.size(), duration, forwardNanos,
+                                                           backwardNanos, 0, allocatedBytes));
+            }
+        } finally {
+            executor.shutdown();
         }
     }
     
@@ -80,25 +263,236 @@ public class NeuralNetwork implements Serializable {
      * @param batchSize The size of each batch for training.
      */
     public void train(double[][] inputs, double[][] expectedOutputs, int epochs, double learningRate, int batchSize) {
-        int numBatches = (inputs.length + batchSize - 1) / batchSize;
+        train(inputs, expectedOutputs, epochs, learningRate, batchSize, 1);
+    }
+    
+    /**
+     * Trains the neural network in batches, splitting every batch into contiguous shards that are processed by a pool
+     * of worker threads. Each worker computes the gradients of its shard in its own buffers; the gradients are then
+     * summed in shard order and applied in one update by the network's {@link Optimizer}, so the result does not
+     * depend on thread scheduling and matches single-threaded training up to floating-point rounding.
+     * The data is copied once into a {@link Dataset}, so the arrays are neither reordered nor modified.
+     *
+     * @param inputs The input data for training.
+     * @param expectedOutputs The expected output data for training.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param batchSize The size of each batch for training.
+     * @param workers The number of worker threads that share each batch.
+     */
+    public void train(double[][] inputs, double[][] expectedOutputs, int epochs, double learningRate, int batchSize,
+                      int workers) {
+        train(new Dataset(inputs, expectedOutputs), epochs, learningRate, batchSize, workers);
+    }
+    
+    /**
+     * Trains the neural network in batches.
+     *
+     * @param dataset The training data; its order is shuffled.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param batchSize The size of each batch for training.
+     */
+    public void train(Dataset dataset, int epochs, double learningRate, int batchSize) {
+        train(dataset, epochs, learningRate, batchSize, 1);
+    }
+    
+    /**
+     * Trains the neural network in batches shared by a pool of worker threads, as described for
+     * {@link #train(double[][], double[][], int, double, int, int)}. Every epoch shuffles only the order of the
+     * dataset, and the workers gather the examples of their shards straight from its storage, so an epoch allocates
+     * nothing in proportion to the size of the data.
+     *
+     * @param dataset The training data; its order is shuffled.
+     * @param epochs The number of epochs to train for.
+     * @param learningRate The learning rate used for training.
+     * @param batchSize The size of each batch for training.
+     * @param workers The number of worker threads that share each batch.
+     */
+    public void train(Dataset dataset, int epochs, double learningRate, int batchSize, int workers) {
+        checkDataset(dataset);
+        if (batchSize < 1 || workers < 1) {
+            throw new IllegalArgumentException("Batch size and number of workers must be positive.");
+        }
+        int size = dataset.size();
+        int numBatches = (size + batchSize - 1) / batchSize;
+        int shardSize = (batchSize + workers - 1) / workers;
+        Arena gradientArena = arena != null ? Arena.ofShared() : null;
+        TrainingWorkspace[] shards = new TrainingWorkspace[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new TrainingWorkspace(layers, shardSize, gradientArena);
+        }
+        ExecutorService executor = workers > 1 ? Executors.newFixedThreadPool(workers) : null;
         
-        for (int epoch = 0; epoch < epochs; epoch++) {
-            scrambleData(inputs, expectedOutputs);
-            double totalLoss = 0;
-            
-            for (int batchIndex = 0; batchIndex < numBatches; batchIndex++) {
-                int start = batchIndex * batchSize;
-                int end = Math.min(start + batchSize, inputs.length);
-                double[][] batchInputs = Arrays.copyOfRange(inputs, start, end);
-                double[][] batchExpected = Arrays.copyOfRange(expectedOutputs, start, end);
+        try {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                EpochEvent epochEvent = new EpochEvent();
+                epochEvent.begin();
+                epochStarted(epoch + 1, epochs);
+                dataset.shuffle(random);
+                double totalLoss = 0;
+                long forwardNanos = 0;
+                long backwardNanos = 0;
+                long updateNanos = 0;
+                long workerAllocation = 0;
+                long startTime = System.nanoTime();
+                long startAllocation = Allocations.currentThread();
                 
-                double[][] batchOutputs = predict(batchInputs);
-                backPropagate(batchExpected, batchOutputs, batchInputs, learningRate);
-                totalLoss += lossFunction.calculateLoss(batchOutputs, batchExpected);
+                for (int batchIndex = 0; batchIndex < numBatches; batchIndex++) {
+                    int start = batchIndex * batchSize;
+                    int end = Math.min(start + batchSize, size);
+                    BatchEvent batchEvent = new BatchEvent();
+                    batchEvent.begin();
+                    batchStarted(epoch + 1, batchIndex + 1, numBatches);
+                    for (TrainingWorkspace shard : shards) {
+                        shard.resetTimings();
+                    }
+                    long batchStart = System.nanoTime();
+                    double batchLoss = trainBatch(dataset, start, end, learningRate, shards, executor);
+                    long batchDuration = System.nanoTime() - batchStart;
+                    
+                    long batchForward = 0;
+                    long batchBackward = 0;
+                    long batchUpdate = 0;
+                    for (TrainingWorkspace shard : shards) {
+                        batchForward += shard.forwardNanos();
+                        batchBackward += shard.backwardNanos();
+                        batchUpdate += shard.updateNanos();
+                        workerAllocation += shard.allocatedBytes();
+                    }
+                    totalLoss += batchLoss;
+                    forwardNanos += batchForward;
+                    backwardNanos += batchBackward;
+                    updateNanos += batchUpdate;
+                    batchFinished(batchEvent, new BatchMetrics(epoch + 1, batchIndex + 1, numBatches, end - start,
+                                                               batchLoss / (end - start), batchDuration, batchForward,
+                                                               batchBackward, batchUpdate));
+                }
+                // Without workers the shard runs on this thread, whose allocations are already counted
+                long allocatedBytes = Allocations.currentThread() - startAllocation
+                                      + (executor != null ? workerAllocation : 0);
+                epochFinished(epochEvent, new EpochMetrics(epoch + 1, epochs, size, totalLoss / size,
+                                                           System.nanoTime() - startTime, forwardNanos, backwardNanos,
+                                                           updateNanos, allocatedBytes));
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            if (gradientArena != null) {
+                gradientArena.close();
+            }
+        }
+    }
+    
+    /**
+     * Adds a listener that is notified of the progress of every subsequent training run.
+     *
+     * @param listener The listener to add.
+     */
+    public void addTrainingListener(TrainingListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a listener added with {@link #addTrainingListener(TrainingListener)}, or the default
+     * {@link ConsoleTrainingReporter} found through {@link #getTrainingListeners()}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeTrainingListener(TrainingListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Returns the listeners notified of training progress, in the order they are called.
+     *
+     * @return An unmodifiable view of the listeners.
+     */
+    public List<TrainingListener> getTrainingListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
+    
+    private void epochStarted(int epoch, int epochs) {
+        for (TrainingListener listener : listeners) {
+            listener.epochStarted(epoch, epochs);
+        }
+    }
+    
+    private void batchStarted(int epoch, int batch, int batches) {
+        for (TrainingListener listener : listeners) {
+            listener.batchStarted(epoch, batch, batches);
+        }
+    }
+    
+    private void batchFinished(BatchEvent event, BatchMetrics metrics) {
+        event.commit(metrics);
+        for (TrainingListener listener : listeners) {
+            listener.batchFinished(metrics);
+        }
+    }
+    
+    private void epochFinished(EpochEvent event, EpochMetrics metrics) {
+        event.commit(metrics);
+        for (TrainingListener listener : listeners) {
+            listener.epochFinished(metrics);
+        }
+    }
+    
+    /**
+     * Computes the gradients of one batch across the shard workspaces and applies their sum to the layers.
+     *
+     * @param dataset The training data.
+     * @param start The position of the first example of the batch, inclusive.
+     * @param end The position of the last example of the batch, exclusive.
+     * @param learningRate The learning rate used for training.
+     * @param shards One workspace per worker.
+     * @param executor The worker pool, or null to compute the single shard on the calling thread.
+     * @return The summed loss of the batch.
+     */
+    private double trainBatch(Dataset dataset, int start, int end, double learningRate, TrainingWorkspace[] shards,
+                              ExecutorService executor) {
+        int rows = end - start;
+        int shardSize = (rows + shards.length - 1) / shards.length;
+        int used = (rows + shardSize - 1) / shardSize;
+        double totalLoss = 0;
+        
+        if (executor == null) {
+            totalLoss = shards[0].computeGradients(dataset, start, end, lossFunction);
+        } else {
+            List<Callable<Double>> tasks = new ArrayList<>(used);
+            for (int i = 0; i < used; i++) {
+                TrainingWorkspace shard = shards[i];
+                int shardStart = start + i * shardSize;
+                int shardEnd = Math.min(shardStart + shardSize, end);
+                tasks.add(() -> shard.computeGradients(dataset, shardStart, shardEnd, lossFunction));
+            }
+            try {
+                for (Future<Double> loss : executor.invokeAll(tasks)) {
+                    totalLoss += loss.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Training was interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A training worker failed.", e.getCause());
+            }
+            for (int i = 1; i < used; i++) {
+                shards[0].add(shards[i]);
             }
-            double averageLoss = totalLoss / inputs.length;
-            System.out.println((epoch + 1) + "/" + epochs + ": Loss = " + averageLoss);
         }
+        if (optimizerStates == null) {
+            optimizerArena = arena != null ? Arena.ofShared() : null;
+            optimizerStates = new OptimizerState[layers.length];
+            for (int i = 0; i < layers.length; i++) {
+                optimizerStates[i] = new OptimizerState(optimizer, layers[i], optimizerArena);
+            }
+        }
+        OptimizerStepEvent stepEvent = new OptimizerStepEvent();
+        stepEvent.begin();
+        shards[0].applyGradients(1.0 / rows, learningRate, optimizerStates);
+        stepEvent.commit(optimizer, layers, rows);
+        return totalLoss;
     }
     
     /**
@@ -108,14 +502,155 @@ public class NeuralNetwork implements Serializable {
      * @return The output values as predicted by the network.
      */
     public double[] predict(double[] inputs) {
+        PredictEvent event = PredictEvent.start();
         double[] outputs = inputs;
         for (Layer layer : layers) {
             outputs = layer.feedForward(outputs);
         }
         outputs = MathUtilities.softmax(outputs);
+        PredictEvent.end(event, 1);
         return outputs;
     }
     
+    /**
+     * Predicts the output for a single input into a caller-supplied array, using a {@link InferenceWorkspace}
+     * owned by the calling thread. After a thread's first call this allocates nothing.
+     *
+     * @param inputs The input values.
+     * @param outputs The array receiving the output values; must have one entry per output neuron.
+     */
+    public void predict(double[] inputs, double[] outputs) {
+        predict(inputs, outputs, threadWorkspace());
+    }
+    
+    /**
+     * Predicts the output for a single input into a caller-supplied array, keeping the intermediate activations in
+     * the given workspace. Allocates nothing.
+     *
+     * @param inputs The input values.
+     * @param outputs The array receiving the output values; must have one entry per output neuron.
+     * @param workspace A workspace created for this network.
+     */
+    public void predict(double[] inputs, double[] outputs, InferenceWorkspace workspace) {
+        PredictEvent event = PredictEvent.start();
+        MathUtilities.softmax(logits(inputs, workspace), outputs);
+        PredictEvent.end(event, 1);
+    }
+    
+    /**
+     * Predicts the most probable class for a single input. Softmax does not change the order of the scores of the
+     * output layer, so this takes the argmax of the scores directly and computes no exponentials. After a thread's
+     * first call this allocates nothing.
+     *
+     * @param inputs The input values.
+     * @return The index of the output neuron with the highest probability.
+     */
+    public int classify(double[] inputs) {
+        PredictEvent event = PredictEvent.start();
+        double[] scores = logits(inputs, threadWorkspace());
+        int predictedClass = MathUtilities.argMax(scores, 0, scores.length);
+        PredictEvent.end(event, 1);
+        return predictedClass;
+    }
+    
+    /**
+     * Predicts the most probable class for multiple inputs, skipping the softmax like {@link #classify(double[])}.
+     *
+     * @param inputs The array of input values.
+     * @return The index of the most probable class of every input.
+     */
+    public int[] classify(double[][] inputs) {
+        int[] classes = new int[inputs.length];
+        classify(inputs, classes);
+        return classes;
+    }
+    
+    /**
+     * Predicts the most probable class for multiple inputs into a caller-supplied array. Every input runs through the
+     * activation buffers of the calling thread's workspace, whose vectorized matrix-vector products outrun the
+     * batched matrix product for inference, so after a thread's first call this allocates nothing.
+     *
+     * @param inputs The array of input values.
+     * @param classes The array receiving the index of the most probable class of every input.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     */
+    public void classify(double[][] inputs, int[] classes) {
+        if (classes.length != inputs.length) {
+            throw new IllegalArgumentException("There must be one class per input.");
+        }
+        PredictEvent event = PredictEvent.start();
+        InferenceWorkspace workspace = threadWorkspace();
+        for (int i = 0; i < inputs.length; i++) {
+            double[] scores = logits(inputs[i], workspace);
+            classes[i] = MathUtilities.argMax(scores, 0, scores.length);
+        }
+        PredictEvent.end(event, inputs.length);
+    }
+    
+    /**
+     * Predicts the k most probable classes for a single input and their probabilities. The classes are selected from
+     * the scores of the output layer by partial selection, and only their k probabilities are computed, from the
+     * log-sum-exp of the scores, instead of the full softmax.
+     *
+     * @param inputs The input values.
+     * @param k The number of classes to return.
+     * @return The k most probable classes in descending order of probability, with their probabilities.
+     * @throws IllegalArgumentException if k is not between one and the number of outputs.
+     */
+    public ClassRanking topK(double[] inputs, int k) {
+        int outputSize = layers[layers.length - 1].getLayerSize();
+        if (k < 1 || k > outputSize) {
+            throw new IllegalArgumentException("k must be between 1 and the number of outputs.");
+        }
+        PredictEvent event = PredictEvent.start();
+        double[] scores = logits(inputs, threadWorkspace());
+        int[] classes = new int[k];
+        MathUtilities.topK(scores, 0, outputSize, classes);
+        double logSumExp = MathUtilities.logSumExp(scores, 0, outputSize);
+        double[] probabilities = new double[k];
+        for (int i = 0; i < k; i++) {
+            probabilities[i] = Math.exp(scores[classes[i]] - logSumExp);
+        }
+        PredictEvent.end(event, 1);
+        return new ClassRanking(classes, probabilities);
+    }
+    
+    /**
+     * Runs the layers on one input, returning the output layer's buffer in the workspace.
+     */
+    private double[] logits(double[] inputs, InferenceWorkspace workspace) {
+        double[] layerInputs = inputs;
+        for (int i = 0; i < layers.length; i++) {
+            double[] layerOutputs = workspace.getActivations(i);
+            layers[i].feedForward(layerInputs, layerOutputs);
+            layerInputs = layerOutputs;
+        }
+        return layerInputs;
+    }
+    
+    /**
+     * Returns the workspace of the calling thread, creating it on the thread's first call.
+     *
+     * @return The calling thread's workspace.
+     */
+    private InferenceWorkspace threadWorkspace() {
+        InferenceWorkspace workspace = workspaces.get();
+        if (workspace == null) {
+            workspace = createWorkspace();
+            workspaces.set(workspace);
+        }
+        return workspace;
+    }
+    
+    /**
+     * Creates a workspace holding one preallocated activation buffer per layer of this network.
+     *
+     * @return A new workspace sized for this network's topology.
+     */
+    public InferenceWorkspace createWorkspace() {
+        return new InferenceWorkspace(this);
+    }
+    
     /**
      * Predicts the output for multiple inputs.
      *
@@ -123,27 +658,44 @@ public class NeuralNetwork implements Serializable {
      * @return The array of output values as predicted by the network.
      */
     public double[][] predict(double[][] inputs) {
+        PredictEvent event = PredictEvent.start();
         double[][] outputs = inputs;
-        for (Layer layer : layers) {
-            outputs = layer.feedForward(outputs);
+        for (int i = 0; i < layers.length; i++) {
+            LayerForwardEvent layerEvent = new LayerForwardEvent();
+            layerEvent.begin();
+            outputs = layers[i].feedForward(outputs);
+            layerEvent.commit(i, layers[i], inputs.length);
         }
         
         for (int i = 0; i < outputs.length; i++) {
             outputs[i] = MathUtilities.softmax(outputs[i]);
         }
+        PredictEvent.end(event, inputs.length);
+        return outputs;
+    }
+    
+    /**
+     * Runs the forward pass of a single training example, recording every layer's activations for back-propagation.
+     *
+     * @param inputs The input values.
+     * @return The scores of the output layer, before softmax.
+     */
+    private double[] trainingForward(double[] inputs) {
+        double[] outputs = inputs;
+        for (Layer layer : layers) {
+            outputs = layer.trainingFeedForward(outputs);
+        }
         return outputs;
     }
     
     /**
      * Implements the backpropagation algorithm for single training example updates.
      *
-     * @param expected The expected output values.
-     * @param output The actual output from the forward pass.
+     * @param errors The error terms of the output layer.
      * @param initialInputs The input values to the network.
      * @param learningRate The learning rate used for weight updates.
      */
-    private void backPropagate(double[] expected, double[] output, double[] initialInputs, double learningRate) {
-        double[] errors = lossFunction.derive(output, expected);
+    private void backPropagate(double[] errors, double[] initialInputs, double learningRate) {
         for (int i = layers.length - 1; i > 0; i--) {
             errors = layers[i].backPropagate(errors, layers[i - 1].getActivations(), learningRate);
         }
@@ -151,66 +703,123 @@ public class NeuralNetwork implements Serializable {
     }
     
     /**
-     * Implements the backpropagation algorithm for batch updates.
+     * Checks that the examples of a dataset fit the input and output layers of the network.
      *
-     * @param expected The expected output values for each example in the batch.
-     * @param output The actual output from the forward pass for each example in the batch.
-     * @param initialInputs The input values to the network for each example in the batch.
-     * @param learningRate The learning rate used for weight updates.
+     * @param dataset The training data.
      */
-    private void backPropagate(double[][] expected, double[][]output, double[][] initialInputs, double learningRate) {
-        double[][] errors = lossFunction.derive(output, expected);
-        for (int i = layers.length - 1; i > 0; i--) {
-            errors = layers[i].backPropagate(errors, layers[i - 1].getLastBatchActivations(), learningRate);
+    private void checkDataset(Dataset dataset) {
+        if (dataset.getInputSize() != layers[0].getInputSize()
+            || dataset.getOutputSize() != layers[layers.length - 1].getLayerSize()) {
+            throw new IllegalArgumentException("Dataset sizes must match the network.");
         }
-        layers[0].backPropagate(errors, initialInputs, learningRate);
     }
     
     /**
-     * Scrambles the order of data and associated outputs to ensure randomized training inputs.
+     * Returns the layers of the network, ending with the linear output layer.
      *
-     * @param inputs The input data to scramble.
-     * @param outputs The output data to scramble along with inputs.
+     * @return The array of layers in feed-forward order.
      */
-    private static void scrambleData(double[][] inputs, double[][] outputs) {
-        if (inputs.length != outputs.length)
-            throw new IllegalArgumentException("Inputs and outputs must have the same length");
-        
-        Random rng = new Random();
-        for (int i = inputs.length - 1; i > 0; i--) {
-            int index = rng.nextInt(i + 1);
-            
-            double[] tempInput = inputs[index];
-            inputs[index] = inputs[i];
-            inputs[i] = tempInput;
-            
-            double[] tempOutput = outputs[index];
-            outputs[index] = outputs[i];
-            outputs[i] = tempOutput;
+    public Layer[] getLayers() {
+        return layers;
+    }
+    
+    /**
+     * Returns the activation function of the hidden layers.
+     *
+     * @return The activation function applied by every layer except the output layer.
+     */
+    public ActivationFunction getActivationFunction() {
+        return activationFunction;
+    }
+    
+    /**
+     * Returns the loss function used during training.
+     *
+     * @return The loss function of this network.
+     */
+    public LossFunction getLossFunction() {
+        return lossFunction;
+    }
+    
+    /**
+     * Returns the optimizer used by minibatch training.
+     *
+     * @return The optimizer of this network, {@link SGD} unless another one was set.
+     */
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+    
+    /**
+     * Sets the source of randomness that orders the training examples of every epoch. Passing a seeded generator
+     * makes single-threaded training reproducible.
+     *
+     * @param random The generator used to shuffle the training data.
+     * @throws IllegalArgumentException if the generator is null.
+     */
+    public void setRandom(Random random) {
+        if (random == null) {
+            throw new IllegalArgumentException("Random must not be null.");
         }
+        this.random = random;
     }
     
     /**
-     * Saves the neural network to a file.
+     * Sets the optimizer used by minibatch training, discarding the state of the previous optimizer.
+     * Its state, such as moment estimates, is kept across calls to {@code train}. Training one example at a time
+     * always uses plain stochastic gradient descent.
+     *
+     * @param optimizer The optimizer to use.
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        if (optimizer == null) {
+            throw new IllegalArgumentException("Optimizer must not be null.");
+        }
+        this.optimizer = optimizer;
+        discardOptimizerStates();
+    }
+    
+    /**
+     * Drops the optimizer state and frees the native memory an off-heap network kept it in.
+     */
+    private void discardOptimizerStates() {
+        optimizerStates = null;
+        if (optimizerArena != null) {
+            optimizerArena.close();
+            optimizerArena = null;
+        }
+    }
+    
+    /**
+     * Releases the native memory of an off-heap network. The network must not be used afterwards. Does nothing for
+     * a network whose weights are on the heap.
+     */
+    @Override
+    public void close() {
+        discardOptimizerStates();
+        if (arena != null) {
+            arena.close();
+        }
+    }
+    
+    /**
+     * Saves the neural network to a file in the binary model format: a versioned header with the topology and the
+     * activation and loss functions, followed by the raw little-endian weights and biases of every layer.
      * @param filename The name of the file to save the network.
      * @throws IOException if an I/O error occurs while writing the file.
+     * @throws IllegalArgumentException if the network uses an activation or loss function the format cannot name.
      */
     public void save(String filename) throws IOException {
-        try (ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream(filename))) {
-            outputStream.writeObject(this);
-        }
+        ModelFile.write(this, Path.of(filename));
     }
     
     /**
-     * Loads a neural network from a file.
+     * Loads a neural network from a file written by {@link #save(String)}.
      * @param filename The name of the file to load the network from.
      * @return The loaded neural network.
-     * @throws IOException if an I/O error occurs while reading the file.
-     * @throws ClassNotFoundException if the class of a serialized object cannot be found.
+     * @throws IOException if an I/O error occurs while reading the file, or it is not a supported model file.
      */
-    public static NeuralNetwork load(String filename) throws IOException, ClassNotFoundException {
-        try (ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream(filename))) {
-            return (NeuralNetwork) inputStream.readObject();
-        }
+    public static NeuralNetwork load(String filename) throws IOException {
+        return ModelFile.read(Path.of(filename));
     }
 }
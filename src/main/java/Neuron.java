@@ -1,117 +1,67 @@
-import java.util.Random;
-
 /**
- * Represents a neuron in a neural network, encapsulating the functionality of weight management,
- * activation calculations, and updates during backpropagation.
+ * Represents a neuron in a neural network as a lightweight view onto one row of its {@link Layer}'s weight matrix,
+ * one entry of its bias vector and one entry of its activations. The parameters themselves are owned by the layer.
+ * <p>
+ * {@link #getWeights()} returns a copy of the neuron's row of the layer's weight matrix; write through
+ * {@link #setWeight(int, double)} or {@link #setWeights(double[])}. Single weights are read with
+ * {@link #getWeight(int)}.
  */
 public class Neuron {
-    private double[] weights;
-    private double bias;
-    private double activation;
+    private final Layer layer;
+    private final int index;
     
     /**
-     * Constructs a Neuron with a specified number of inputs. Initializes weights and bias.
+     * Constructs a standalone Neuron with a specified number of inputs. Initializes weights and bias.
+     * The neuron is backed by a private single-neuron layer; its values can be copied into a network
+     * through {@link Layer#setNeurons(Neuron[])}.
      *
      * @param inputSize The number of inputs this neuron receives, which determines the number of weights.
      */
     public Neuron(int inputSize) {
-        this.weights = new double[inputSize];
-        this.bias = 0;
-        initializeWeights();
+        this(new Layer(1, inputSize, new Linear()), 0);
     }
     
     /**
-     * Initializes the neuron's weights with random values typically near zero to start training in a neutral position.
-     */
-    private void initializeWeights() {
-        Random randomNumberGenerator = new Random();
-        for (int i = 0; i < weights.length; i++) {
-            // Initialize weights to random double between -0.05 and 0.05
-            weights[i] = randomNumberGenerator.nextDouble() * 0.1 - 0.05;
-        }
-    }
-    
-    /**
-     * Processes inputs using the neuron's weights and bias, applying an activation function to the weighted sum.
+     * Constructs a view onto the neuron at the given index of a layer.
      *
-     * @param inputs Array of input values that must match the number of weights.
-     * @param activationFunction The activation function to apply to the input.
-     * @return The activation result from the neuron.
+     * @param layer The layer that owns this neuron's parameters.
+     * @param index The row of the layer's weight matrix that belongs to this neuron.
      */
-    protected double feedForward(double[] inputs, ActivationFunction activationFunction) {
-        if (inputs.length != weights.length) {
-            throw new IllegalArgumentException("Input size must match the number of weights.");
-        }
-        double total = MathUtilities.dotProduct(weights, inputs) + bias;
-        activation = activationFunction.activate(total);
-        return activation;
+    Neuron(Layer layer, int index) {
+        this.layer = layer;
+        this.index = index;
     }
     
     /**
-     * Processes batches of inputs using the neuron's weights and bias, applying an activation function.
+     * Returns a copy of the weights of this neuron. Writes to the returned array do not reach the neuron; use
+     * {@link #setWeight(int, double)} or {@link #setWeights(double[])} instead.
      *
-     * @param inputs A 2D array of input values where each sub-array must match the number of weights.
-     * @param activationFunction The activation function to apply.
-     * @return An array of activation results for each set of inputs.
-     */
-    protected double[] feedForward(double[][] inputs, ActivationFunction activationFunction) {
-        if (inputs[0].length != weights.length) {
-            throw new IllegalArgumentException("Input size must match the number of weights.");
-        }
-        double[] results = new double[inputs.length];
-        for (int i = 0; i < inputs.length; i++) {
-            results[i] = activationFunction.activate(MathUtilities.dotProduct(weights, inputs[i]) + bias);
-        }
-        return results;
-    }
-    
-    /**
-     * Updates the weights and bias of the neuron based on the error delta, learning rate, and inputs.
-     *
-     * @param inputs Array of input values.
-     * @param learningRate Learning rate for updating the weights and bias.
-     * @param delta The error term for the weight update.
+     * @return An array of weights.
      */
-    protected void updateWeights(double[] inputs, double learningRate, double delta) {
-        if (inputs.length != weights.length) {
-            throw new IllegalArgumentException("Input size must match the number of weights.");
-        }
-        for (int i = 0; i < weights.length; i++) {
-            weights[i] -= learningRate * delta * inputs[i];
-        }
-        bias -= learningRate * delta;
+    public double[] getWeights() {
+        double[] weights = new double[layer.getInputSize()];
+        layer.copyWeights(index, weights);
+        return weights;
     }
     
     /**
-     * Updates the weights and bias of the neuron for batch inputs.
+     * Returns one weight of this neuron.
      *
-     * @param inputs A 2D array of input values.
-     * @param learningRate Learning rate for updating the weights and bias.
-     * @param deltas An array of error terms for each input in the batch.
+     * @param input The index of the input the weight applies to.
+     * @return The weight.
      */
-    protected void updateWeights(double[][] inputs, double learningRate, double[] deltas) {
-        double[] gradientSum = new double[weights.length];
-        double deltaSum = 0;
-        for (int i = 0; i < inputs.length; i++) {
-            for (int j = 0; j < weights.length; j++) {
-                gradientSum[j] += deltas[i] * inputs[i][j];
-            }
-            deltaSum += deltas[i];
-        }
-        
-        for (int k = 0; k < weights.length; k++) {
-            weights[k] -= learningRate * gradientSum[k] / inputs.length;
-        }
-        bias -=learningRate * deltaSum / inputs.length;
+    public double getWeight(int input) {
+        return layer.getWeight(index, input);
     }
     
     /**
-     * Returns the weights of this neuron.
+     * Sets one weight of this neuron.
      *
-     * @return An array of weights.
+     * @param input The index of the input the weight applies to.
+     * @param weight The new weight.
      */
-    public double[] getWeights() {
-        return weights;
+    public void setWeight(int input, double weight) {
+        layer.setWeight(index, input, weight);
     }
     
     /**
@@ -120,10 +70,10 @@ public class Neuron {
      * @param weights An array of new weights to set. Must be the same length as the current weights array.
      */
     public void setWeights(double[] weights) {
-        if (weights == null || weights.length != this.weights.length) {
+        if (weights == null || weights.length != layer.getInputSize()) {
             throw new IllegalArgumentException("Length of new weights must match the existing weights.");
         }
-        this.weights = weights;
+        layer.setWeights(index, weights);
     }
     
     /**
@@ -132,7 +82,7 @@ public class Neuron {
      * @return The current bias.
      */
     public double getBias() {
-        return bias;
+        return layer.getBiases()[index];
     }
     
     /**
@@ -141,7 +91,7 @@ public class Neuron {
      * @param bias The new bias value.
      */
     public void setBias(double bias) {
-        this.bias = bias;
+        layer.getBiases()[index] = bias;
     }
     
     /**
@@ -150,7 +100,7 @@ public class Neuron {
      * @return The last computed activation.
      */
     public double getActivation() {
-        return activation;
+        return layer.activationStorage()[index];
     }
     
     /**
@@ -159,7 +109,7 @@ public class Neuron {
      * @param activation The new activation value.
      */
     public void setActivation(double activation) {
-        this.activation = activation;
+        layer.activationStorage()[index] = activation;
     }
     
 }
@@ -0,0 +1,70 @@
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Represents an optimizer that turns loss gradients into parameter updates during minibatch training.
+ * An optimizer only holds hyperparameters; the running state it keeps per parameter, such as moment estimates,
+ * lives in contiguous buffers owned by the network, one buffer per layer and state value. The weight state of an
+ * off-heap network is kept off-heap like its weights.
+ */
+public interface Optimizer {
+    
+    /**
+     * Returns the number of state values this optimizer keeps per parameter.
+     *
+     * @return The number of state buffers, zero for a stateless optimizer.
+     */
+    int stateSize();
+    
+    /**
+     * Updates a range of parameters in one fused pass, reading each gradient and state value once.
+     *
+     * @param parameters Array containing the parameters to update.
+     * @param parameterOffset Index of the first parameter to update.
+     * @param gradients Array containing the loss gradients of the parameters.
+     * @param gradientOffset Index of the gradient of the first parameter.
+     * @param state The {@link #stateSize()} state buffers of the parameters.
+     * @param stateOffset Index of the state of the first parameter within each state buffer.
+     * @param length The number of parameters to update.
+     * @param gradientScale The factor applied to every gradient, typically one over the batch size.
+     * @param learningRate The learning rate of this step.
+     * @param step The number of this step, starting at one.
+     */
+    void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset, double[][] state,
+                int stateOffset, int length, double gradientScale, double learningRate, long step);
+    
+    /**
+     * Updates a range of off-heap parameters in one fused pass, where the parameters, gradients and state are all
+     * little-endian doubles in memory segments. The default implementation copies the range through heap arrays and
+     * calls {@link #update(double[], int, double[], int, double[][], int, int, double, double, long)}; the optimizers
+     * of this library override it to update the segments in place.
+     *
+     * @param parameters The segment containing the parameters to update.
+     * @param parameterOffset Byte offset of the first parameter to update; must be a multiple of eight.
+     * @param gradients The segment containing the loss gradients of the parameters.
+     * @param gradientOffset Byte offset of the gradient of the first parameter; must be a multiple of eight.
+     * @param state The {@link #stateSize()} state segments of the parameters.
+     * @param stateOffset Byte offset of the state of the first parameter within each state segment.
+     * @param length The number of parameters to update.
+     * @param gradientScale The factor applied to every gradient, typically one over the batch size.
+     * @param learningRate The learning rate of this step.
+     * @param step The number of this step, starting at one.
+     */
+    default void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients, long gradientOffset,
+                        MemorySegment[] state, long stateOffset, int length, double gradientScale,
+                        double learningRate, long step) {
+        long bytes = (long) length * Double.BYTES;
+        ValueLayout.OfDouble layout = MathUtilities.LITTLE_ENDIAN_DOUBLE;
+        double[] parameterArray = parameters.asSlice(parameterOffset, bytes).toArray(layout);
+        double[] gradientArray = gradients.asSlice(gradientOffset, bytes).toArray(layout);
+        double[][] stateArrays = new double[state.length][];
+        for (int i = 0; i < state.length; i++) {
+            stateArrays[i] = state[i].asSlice(stateOffset, bytes).toArray(layout);
+        }
+        update(parameterArray, 0, gradientArray, 0, stateArrays, 0, length, gradientScale, learningRate, step);
+        MemorySegment.copy(parameterArray, 0, parameters, layout, parameterOffset, length);
+        for (int i = 0; i < state.length; i++) {
+            MemorySegment.copy(stateArrays[i], 0, state[i], layout, stateOffset, length);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Holds the running state of an {@link Optimizer} for one layer: one contiguous buffer per state value for the
+ * weights and for the biases, and the number of updates taken so far. The weight state of an off-heap layer is
+ * allocated off-heap as well when an arena is given, so the optimizer reads it next to the weights it updates.
+ */
+final class OptimizerState {
+    final Optimizer optimizer;
+    final double[][] weights;
+    final MemorySegment[] weightSegments;
+    final double[][] biases;
+    long step;
+    
+    /**
+     * Constructs zeroed state for a layer.
+     *
+     * @param optimizer The optimizer that owns the state.
+     * @param layer The layer whose parameters are updated.
+     * @param arena The arena providing the weight state of an off-heap layer, or null to keep all state on the heap.
+     */
+    OptimizerState(Optimizer optimizer, Layer layer, Arena arena) {
+        this.optimizer = optimizer;
+        int stateSize = optimizer.stateSize();
+        if (arena != null && layer.isOffHeap()) {
+            this.weights = null;
+            this.weightSegments = new MemorySegment[stateSize];
+            for (int i = 0; i < stateSize; i++) {
+                weightSegments[i] = arena.allocate(layer.weightSegment().byteSize(), Layer.SEGMENT_ALIGNMENT);
+            }
+        } else {
+            this.weights = new double[stateSize][layer.getLayerSize() * layer.getInputSize()];
+            this.weightSegments = null;
+        }
+        this.biases = new double[stateSize][layer.getLayerSize()];
+    }
+}
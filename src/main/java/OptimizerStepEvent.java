@@ -0,0 +1,47 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one optimizer step over every layer of a {@link NeuralNetwork}.
+ */
+@Name("neuralnetwork.OptimizerStep")
+@Label("Optimizer Step")
+@Category({"Neural Network", "Training"})
+@Description("Application of the summed gradients of a minibatch to the parameters")
+final class OptimizerStepEvent extends Event {
+    @Label("Optimizer")
+    String optimizer;
+    
+    @Label("Batch Size")
+    int batchSize;
+    
+    @Label("Parameters")
+    long parameters;
+    
+    @Label("Parameter Bytes")
+    @DataAmount
+    long bytes;
+    
+    /**
+     * Ends the event and records it if the event is enabled and over its threshold.
+     *
+     * @param source The optimizer that took the step.
+     * @param layers The layers that were updated.
+     * @param rows The number of examples the gradients were summed over.
+     */
+    void commit(Optimizer source, Layer[] layers, int rows) {
+        if (shouldCommit()) {
+            optimizer = source.getClass().getSimpleName();
+            batchSize = rows;
+            for (Layer layer : layers) {
+                parameters += (long) layer.getLayerSize() * (layer.getInputSize() + 1);
+            }
+            bytes = parameters * Double.BYTES;
+            commit();
+        }
+    }
+}
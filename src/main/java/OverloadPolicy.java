@@ -0,0 +1,15 @@
+/**
+ * Selects what an {@link AsyncPredictor} does with a prediction submitted while its queue is full.
+ */
+public enum OverloadPolicy {
+    /**
+     * The new prediction fails immediately with a {@link java.util.concurrent.RejectedExecutionException}, so callers
+     * see overload at once and queued requests keep their place.
+     */
+    REJECT,
+    /**
+     * The oldest queued prediction fails with a {@link java.util.concurrent.RejectedExecutionException} to make room
+     * for the new one, which favours fresh requests when old ones are likely to be abandoned by their callers.
+     */
+    DROP_OLDEST
+}
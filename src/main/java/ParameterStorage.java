@@ -0,0 +1,14 @@
+/**
+ * Selects where a {@link NeuralNetwork} keeps its weight matrices.
+ */
+public enum ParameterStorage {
+    /**
+     * Weights live in Java arrays on the garbage-collected heap.
+     */
+    HEAP,
+    /**
+     * Weights live in 64-byte aligned native memory owned by the network, which keeps large models out of the
+     * garbage-collected heap. The memory is released when the network is closed.
+     */
+    OFF_HEAP
+}
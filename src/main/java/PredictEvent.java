@@ -0,0 +1,59 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning one call to a {@code predict} method of {@link NeuralNetwork}.
+ * The escape analysis of the JIT does not remove the event object, so {@link #start()} only creates one while a
+ * recording has the event enabled and the inference paths stay free of allocation otherwise.
+ */
+@Name("neuralnetwork.Predict")
+@Label("Predict")
+@Category({"Neural Network", "Inference"})
+@Description("Forward pass and softmax for one or more inputs")
+final class PredictEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(PredictEvent.class);
+    @Label("Batch Size")
+    int batchSize;
+    
+    /**
+     * Begins an event if a recording has enabled it.
+     *
+     * @return The started event, or null if the event is disabled.
+     */
+    static PredictEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        PredictEvent event = new PredictEvent();
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Ends an event returned by {@link #start()} and records it if it is over its threshold.
+     *
+     * @param event The event, or null if the event was disabled when it would have started.
+     * @param rows The number of inputs predicted.
+     */
+    static void end(PredictEvent event, int rows) {
+        if (event != null) {
+            event.commit(rows);
+        }
+    }
+    
+    /**
+     * Ends the event and records it if the event is enabled and over its threshold.
+     *
+     * @param rows The number of inputs predicted.
+     */
+    void commit(int rows) {
+        if (shouldCommit()) {
+            batchSize = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reactive-streams stage that turns a stream of inputs into a stream of predictions of a {@link NeuralNetwork}.
+ * Items are gathered into batches for {@link NeuralNetwork#predict(double[][])}; a batch is run as soon as it holds
+ * maxBatchSize inputs, as soon as it holds every item the subscriber has asked for, or maxLatency after its first
+ * input arrived, whichever comes first. Predictions are emitted in the order of their inputs.
+ * <p>
+ * The processor never requests more inputs from upstream than its subscriber has requested predictions, and never
+ * more than maxBatchSize at a time, so backpressure propagates through it and it buffers at most one batch. It
+ * accepts a single subscriber. All signals are handled on one thread owned by the processor, which also runs the
+ * batches; the thread stops when the stream completes, fails or is cancelled.
+ */
+public class PredictionProcessor implements Flow.Processor<double[], double[]> {
+    private final NeuralNetwork network;
+    private final int inputSize;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final ScheduledThreadPoolExecutor executor;
+    // The fields below are only accessed on the executor thread
+    private final List<double[]> batch = new ArrayList<>();
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super double[]> downstream;
+    private long demand;
+    private long requested;
+    private long batchGeneration;
+    private boolean upstreamDone;
+    private Throwable upstreamError;
+    private boolean done;
+    
+    /**
+     * Constructs a processor for a network.
+     *
+     * @param network The network to predict with; it must not be trained while the stream runs.
+     * @param maxBatchSize The largest number of inputs run as one batch.
+     * @param maxLatency The longest time an input waits for its batch to fill; zero runs the inputs that have
+     *                   already arrived without waiting.
+     * @throws IllegalArgumentException if the batch size is not positive or the latency is negative.
+     */
+    public PredictionProcessor(NeuralNetwork network, int maxBatchSize, Duration maxLatency) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive.");
+        }
+        if (maxLatency.isNegative()) {
+            throw new IllegalArgumentException("Maximum latency must not be negative.");
+        }
+        this.network = network;
+        this.inputSize = network.getLayers()[0].getInputSize();
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.executor = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("prediction-processor")
+                                                                 .daemon().factory());
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super double[]> subscriber) {
+        Objects.requireNonNull(subscriber);
+        boolean accepted = run(() -> {
+            if (downstream != null || done) {
+                refuse(subscriber);
+                return;
+            }
+            downstream = subscriber;
+            subscriber.onSubscribe(new DownstreamSubscription());
+            if (upstreamDone) {
+                flushAndTerminate();
+            }
+        });
+        if (!accepted) {
+            refuse(subscriber);
+        }
+    }
+    
+    private static void refuse(Flow.Subscriber<? super double[]> subscriber) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+            
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(new IllegalStateException("The processor accepts a single subscriber."));
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        run(() -> {
+            if (upstream != null || done) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            requestMore();
+        });
+    }
+    
+    @Override
+    public void onNext(double[] item) {
+        Objects.requireNonNull(item);
+        run(() -> {
+            if (done) {
+                return;
+            }
+            requested--;
+            if (item.length != inputSize) {
+                fail(new IllegalArgumentException("Input size must match the number of weights."));
+                return;
+            }
+            batch.add(item);
+            if (batch.size() >= Math.min(demand, maxBatchSize)) {
+                flush();
+                requestMore();
+            } else if (batch.size() == 1) {
+                long generation = batchGeneration;
+                executor.schedule(() -> flushExpired(generation), maxLatencyNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        run(() -> {
+            upstreamDone = true;
+            upstreamError = throwable;
+            if (downstream != null) {
+                flushAndTerminate();
+            }
+        });
+    }
+    
+    @Override
+    public void onComplete() {
+        run(() -> {
+            upstreamDone = true;
+            if (downstream != null) {
+                flushAndTerminate();
+            }
+        });
+    }
+    
+    /**
+     * Runs the partial batch whose first input arrived maxLatency ago, unless it has been run already.
+     */
+    private void flushExpired(long generation) {
+        if (!done && generation == batchGeneration && !batch.isEmpty()) {
+            flush();
+            requestMore();
+        }
+    }
+    
+    /**
+     * Asks upstream for as many inputs as the subscriber still wants, minus those already buffered or requested,
+     * limited to one batch.
+     */
+    private void requestMore() {
+        if (upstream == null || upstreamDone || done) {
+            return;
+        }
+        long wanted = Math.min(demand, maxBatchSize) - batch.size() - requested;
+        if (wanted > 0) {
+            requested += wanted;
+            upstream.request(wanted);
+        }
+    }
+    
+    /**
+     * Predicts the buffered inputs and emits the results in order. The subscriber has always requested at least as
+     * many results as there are buffered inputs.
+     */
+    private void flush() {
+        batchGeneration++;
+        if (batch.isEmpty()) {
+            return;
+        }
+        double[][] outputs;
+        try {
+            outputs = network.predict(batch.toArray(new double[0][]));
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+        batch.clear();
+        demand -= outputs.length;
+        for (double[] output : outputs) {
+            downstream.onNext(output);
+            if (done) {
+                return;
+            }
+        }
+    }
+    
+    private void flushAndTerminate() {
+        if (done) {
+            return;
+        }
+        flush();
+        if (done) {
+            return;
+        }
+        done = true;
+        if (upstreamError != null) {
+            downstream.onError(upstreamError);
+        } else {
+            downstream.onComplete();
+        }
+        executor.shutdown();
+    }
+    
+    /**
+     * Cancels upstream and terminates the subscriber with an error.
+     */
+    private void fail(Throwable throwable) {
+        if (done) {
+            return;
+        }
+        done = true;
+        batch.clear();
+        if (upstream != null) {
+            upstream.cancel();
+        }
+        if (downstream != null) {
+            downstream.onError(throwable);
+        }
+        executor.shutdown();
+    }
+    
+    /**
+     * Runs a signal on the processor thread. Signals arriving after the stream has terminated are dropped.
+     *
+     * @return Whether the signal was queued, which is false once the stream has terminated.
+     */
+    private boolean run(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * The subscription handed to the subscriber, relaying its demand and cancellation to the processor thread.
+     */
+    private final class DownstreamSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            run(() -> {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("The number of requested items must be positive."));
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                requestMore();
+            });
+        }
+        
+        @Override
+        public void cancel() {
+            run(() -> {
+                if (done) {
+                    return;
+                }
+                done = true;
+                batch.clear();
+                if (upstream != null) {
+                    upstream.cancel();
+                }
+                executor.shutdown();
+            });
+        }
+    }
+}
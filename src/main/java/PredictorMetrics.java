@@ -0,0 +1,45 @@
+/**
+ * A snapshot of the counters of an {@link AsyncPredictor}, returned by {@link AsyncPredictor#getMetrics()}.
+ * The counters accumulate from the creation of the predictor.
+ *
+ * @param queueDepth The number of predictions waiting in the queue when the snapshot was taken.
+ * @param submitted The number of predictions submitted, including rejected ones.
+ * @param completed The number of predictions completed with a result.
+ * @param failed The number of predictions whose batch threw an exception.
+ * @param rejected The number of predictions rejected because the queue was full or the predictor was closed.
+ * @param dropped The number of queued predictions dropped to make room under {@link OverloadPolicy#DROP_OLDEST}.
+ * @param batches The number of batches run.
+ * @param totalWaitNanos The time completed predictions spent in the queue, summed, in nanoseconds.
+ * @param totalServiceNanos The time of the batches that completed predictions, counted once for every prediction
+ *                          of the batch, in nanoseconds.
+ */
+public record PredictorMetrics(int queueDepth, long submitted, long completed, long failed, long rejected,
+                               long dropped, long batches, long totalWaitNanos, long totalServiceNanos) {
+    
+    /**
+     * Returns the mean time a completed prediction waited in the queue before its batch started.
+     *
+     * @return The mean wait time in nanoseconds, or zero if no prediction has completed.
+     */
+    public double averageWaitNanos() {
+        return completed == 0 ? 0 : (double) totalWaitNanos / completed;
+    }
+    
+    /**
+     * Returns the mean duration of the batch that computed a completed prediction.
+     *
+     * @return The mean service time in nanoseconds, or zero if no prediction has completed.
+     */
+    public double averageServiceNanos() {
+        return completed == 0 ? 0 : (double) totalServiceNanos / completed;
+    }
+    
+    /**
+     * Returns the mean number of predictions per batch.
+     *
+     * @return The mean batch size, or zero if no batch has run.
+     */
+    public double averageBatchSize() {
+        return batches == 0 ? 0 : (double) (completed + failed) / batches;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Eight-bit integer counterpart of {@link Layer} for inference. Every row of the weight matrix is quantized to signed
+ * bytes with its own scale and zero point, and the inputs of the layer are quantized with one scale and zero point
+ * derived from the range observed during calibration. The weighted sums are accumulated in 32-bit integers and
+ * dequantized once per neuron before the bias and the activation function are applied in double precision.
+ * The weights take an eighth of the memory of the double-precision layer.
+ */
+public class QuantizedLayer {
+    private static final int MIN_QUANTIZED = Byte.MIN_VALUE;
+    private static final int MAX_QUANTIZED = Byte.MAX_VALUE;
+    private final int layerSize;
+    private final int inputSize;
+    private final byte[] weights;
+    private final double[] weightScales;
+    private final int[] weightZeroPoints;
+    private final int[] weightRowSums;
+    private final double[] biases;
+    private final double inputScale;
+    private final double inverseInputScale;
+    private final int inputZeroPoint;
+    private final ActivationFunction activationFunction;
+    
+    /**
+     * Constructs a QuantizedLayer holding the parameters of a double-precision layer quantized to eight bits.
+     *
+     * @param layer The layer whose weights, biases and activation function are quantized.
+     * @param inputMin The smallest input value expected by the layer, observed during calibration.
+     * @param inputMax The largest input value expected by the layer, observed during calibration.
+     * @throws IllegalArgumentException if the input size is not below the 131072 elements a 32-bit accumulator
+     *         supports, or the layer has more weights than a byte array can hold.
+     */
+    public QuantizedLayer(Layer layer, double inputMin, double inputMax) {
+        this.layerSize = layer.getLayerSize();
+        this.inputSize = layer.getInputSize();
+        if (inputSize >= 1 << 17) {
+            throw new IllegalArgumentException("Input size is too large for 32-bit accumulation.");
+        }
+        if ((long) layerSize * inputSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Layer has more weights than an array can hold.");
+        }
+        this.weights = new byte[layerSize * inputSize];
+        this.weightScales = new double[layerSize];
+        this.weightZeroPoints = new int[layerSize];
+        this.weightRowSums = new int[layerSize];
+        this.biases = layer.getBiases().clone();
+        this.activationFunction = layer.getActivationFunction();
+        
+        double[] sourceWeights = layer.getWeights();
+        for (int j = 0; j < layerSize; j++) {
+            int row = j * inputSize;
+            double min = 0;
+            double max = 0;
+            for (int i = 0; i < inputSize; i++) {
+                min = Math.min(min, sourceWeights[row + i]);
+                max = Math.max(max, sourceWeights[row + i]);
+            }
+            weightScales[j] = scale(min, max);
+            weightZeroPoints[j] = zeroPoint(min, weightScales[j]);
+            int sum = 0;
+            for (int i = 0; i < inputSize; i++) {
+                weights[row + i] = quantize(sourceWeights[row + i] / weightScales[j], weightZeroPoints[j]);
+                sum += weights[row + i];
+            }
+            weightRowSums[j] = sum;
+        }
+        this.inputScale = scale(Math.min(inputMin, 0), Math.max(inputMax, 0));
+        this.inverseInputScale = 1 / inputScale;
+        this.inputZeroPoint = zeroPoint(Math.min(inputMin, 0), inputScale);
+    }
+    
+    /**
+     * Performs feed-forward operation for a single set of inputs, writing the outputs into a caller-supplied buffer.
+     * Does not allocate.
+     *
+     * @param inputs An array of input values to be processed by the layer.
+     * @param quantizedInputs A buffer of inputSize bytes receiving the quantized inputs.
+     * @param outputs An array receiving one output value per neuron.
+     */
+    protected void feedForward(double[] inputs, byte[] quantizedInputs, double[] outputs) {
+        if (inputs.length != inputSize) {
+            throw new IllegalArgumentException("Input size must match the number of weights.");
+        }
+        int inputSum = 0;
+        for (int i = 0; i < inputSize; i++) {
+            quantizedInputs[i] = quantize(inputs[i] * inverseInputScale, inputZeroPoint);
+            inputSum += quantizedInputs[i];
+        }
+        
+        // sum (w - zw)(x - zx) = sum wx - zx sum w - zw sum x + n zw zx
+        for (int j = 0; j < layerSize; j++) {
+            long accumulator = MathUtilities.dotProduct(weights, j * inputSize, quantizedInputs, 0, inputSize);
+            accumulator -= (long) inputZeroPoint * weightRowSums[j];
+            accumulator -= (long) weightZeroPoints[j] * inputSum;
+            accumulator += (long) inputSize * weightZeroPoints[j] * inputZeroPoint;
+            outputs[j] = weightScales[j] * inputScale * accumulator + biases[j];
+        }
+        activationFunction.activate(outputs, outputs, 0, layerSize);
+    }
+    
+    /**
+     * Returns the scale that maps the range [min, max] onto the 256 quantization levels.
+     */
+    private static double scale(double min, double max) {
+        return max > min ? (max - min) / (MAX_QUANTIZED - MIN_QUANTIZED) : 1;
+    }
+    
+    /**
+     * Returns the quantized value that represents zero exactly, so that zero inputs and weights add no error.
+     */
+    private static int zeroPoint(double min, double scale) {
+        long zeroPoint = MIN_QUANTIZED - Math.round(min / scale);
+        return (int) Math.max(MIN_QUANTIZED, Math.min(MAX_QUANTIZED, zeroPoint));
+    }
+    
+    /**
+     * Rounds a value already divided by its scale to the nearest quantized level.
+     */
+    private static byte quantize(double scaledValue, int zeroPoint) {
+        long quantized = Math.round(scaledValue) + zeroPoint;
+        return (byte) Math.max(MIN_QUANTIZED, Math.min(MAX_QUANTIZED, quantized));
+    }
+    
+    /**
+     * Returns the number of neurons in this layer.
+     *
+     * @return The number of neurons, which is also the number of rows of the weight matrix.
+     */
+    public int getLayerSize() {
+        return layerSize;
+    }
+    
+    /**
+     * Returns the size of the input received by each neuron of this layer.
+     *
+     * @return The number of inputs, which is also the number of columns of the weight matrix.
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+    
+    /**
+     * Returns the quantized weight matrix of this layer in row-major order.
+     * Weight {@code i} of neuron {@code j} represents {@code getWeightScales()[j] * (q - getWeightZeroPoints()[j])},
+     * where {@code q} is the byte at index {@code j * getInputSize() + i}.
+     *
+     * @return The backing weight array of this layer.
+     */
+    public byte[] getWeights() {
+        return weights;
+    }
+    
+    /**
+     * Returns the quantization scale of every row of the weight matrix.
+     *
+     * @return The backing array of scales, one entry per neuron.
+     */
+    public double[] getWeightScales() {
+        return weightScales;
+    }
+    
+    /**
+     * Returns the quantization zero point of every row of the weight matrix.
+     *
+     * @return The backing array of zero points, one entry per neuron.
+     */
+    public int[] getWeightZeroPoints() {
+        return weightZeroPoints;
+    }
+    
+    /**
+     * Returns the scale used to quantize the inputs of this layer.
+     *
+     * @return The difference between two adjacent quantized input levels.
+     */
+    public double getInputScale() {
+        return inputScale;
+    }
+    
+    /**
+     * Returns the zero point used to quantize the inputs of this layer.
+     *
+     * @return The quantized value representing an input of zero.
+     */
+    public int getInputZeroPoint() {
+        return inputZeroPoint;
+    }
+    
+    /**
+     * Returns the activation function used by this layer.
+     *
+     * @return The activation function applied by every neuron of this layer.
+     */
+    public ActivationFunction getActivationFunction() {
+        return activationFunction;
+    }
+}
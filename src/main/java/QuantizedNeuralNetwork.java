@@ -0,0 +1,181 @@
+/**
+ * Eight-bit integer inference variant of {@link NeuralNetwork}, created from a trained network and a sample of
+ * representative inputs. Calibration runs the sample through the double-precision network to find the range of
+ * every layer's inputs, quantizes each layer with {@link QuantizedLayer}, and then records how often the quantized
+ * network predicts the same class as the original one on the sample. Predictions are thread-safe.
+ */
+public class QuantizedNeuralNetwork {
+    private final QuantizedLayer[] layers;
+    private final double calibrationAgreement;
+    private final ThreadLocal<Workspace> workspaces = new ThreadLocal<>();
+    
+    /**
+     * Constructs a QuantizedNeuralNetwork by calibrating and quantizing a double-precision network.
+     *
+     * @param network The trained network to quantize.
+     * @param calibrationInputs A sample of inputs representative of those the network will serve.
+     * @throws IllegalArgumentException if the calibration sample is empty.
+     */
+    public QuantizedNeuralNetwork(NeuralNetwork network, double[][] calibrationInputs) {
+        if (calibrationInputs.length == 0) {
+            throw new IllegalArgumentException("Calibration requires at least one input.");
+        }
+        Layer[] sourceLayers = network.getLayers();
+        double[] inputMin = new double[sourceLayers.length];
+        double[] inputMax = new double[sourceLayers.length];
+        double[][] activations = new double[sourceLayers.length][];
+        for (int i = 0; i < sourceLayers.length; i++) {
+            inputMin[i] = Double.POSITIVE_INFINITY;
+            inputMax[i] = Double.NEGATIVE_INFINITY;
+            activations[i] = new double[sourceLayers[i].getLayerSize()];
+        }
+        
+        int[] expectedClasses = new int[calibrationInputs.length];
+        for (int n = 0; n < calibrationInputs.length; n++) {
+            double[] layerInputs = calibrationInputs[n];
+            for (int i = 0; i < sourceLayers.length; i++) {
+                for (double value : layerInputs) {
+                    inputMin[i] = Math.min(inputMin[i], value);
+                    inputMax[i] = Math.max(inputMax[i], value);
+                }
+                sourceLayers[i].feedForward(layerInputs, activations[i]);
+                layerInputs = activations[i];
+            }
+            expectedClasses[n] = MathUtilities.argMax(layerInputs);
+        }
+        
+        this.layers = new QuantizedLayer[sourceLayers.length];
+        for (int i = 0; i < sourceLayers.length; i++) {
+            layers[i] = new QuantizedLayer(sourceLayers[i], inputMin[i], inputMax[i]);
+        }
+        this.calibrationAgreement = agreement(calibrationInputs, expectedClasses);
+    }
+    
+    /**
+     * Predicts the output for a single input.
+     *
+     * @param inputs The input values.
+     * @return The output values as predicted by the network.
+     */
+    public double[] predict(double[] inputs) {
+        double[] outputs = new double[layers[layers.length - 1].getLayerSize()];
+        predict(inputs, outputs);
+        return outputs;
+    }
+    
+    /**
+     * Predicts the output for a single input into a caller-supplied array, using buffers owned by the calling thread.
+     * After a thread's first call this allocates nothing.
+     *
+     * @param inputs The input values.
+     * @param outputs The array receiving the output values; must have one entry per output neuron.
+     */
+    public void predict(double[] inputs, double[] outputs) {
+        MathUtilities.softmax(logits(inputs), outputs);
+    }
+    
+    /**
+     * Predicts the output for multiple inputs, one input at a time.
+     *
+     * @param inputs The array of input values.
+     * @return The array of output values as predicted by the network.
+     */
+    public double[][] predict(double[][] inputs) {
+        double[][] outputs = new double[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            outputs[i] = predict(inputs[i]);
+        }
+        return outputs;
+    }
+    
+    /**
+     * Returns the fraction of inputs for which this network predicts the same class as a reference network,
+     * for example the network it was quantized from, evaluated on a held-out set.
+     *
+     * @param reference The network to compare against.
+     * @param inputs The inputs to compare on.
+     * @return The fraction of inputs whose most probable class matches, between 0 and 1.
+     */
+    public double agreement(NeuralNetwork reference, double[][] inputs) {
+        int[] expectedClasses = new int[inputs.length];
+        double[] outputs = new double[layers[layers.length - 1].getLayerSize()];
+        for (int n = 0; n < inputs.length; n++) {
+            reference.predict(inputs[n], outputs);
+            expectedClasses[n] = MathUtilities.argMax(outputs);
+        }
+        return agreement(inputs, expectedClasses);
+    }
+    
+    private double agreement(double[][] inputs, int[] expectedClasses) {
+        int matches = 0;
+        for (int n = 0; n < inputs.length; n++) {
+            if (MathUtilities.argMax(logits(inputs[n])) == expectedClasses[n]) {
+                matches++;
+            }
+        }
+        return inputs.length == 0 ? 1 : (double) matches / inputs.length;
+    }
+    
+    /**
+     * Runs the layers on one input, returning the output layer's buffer in the calling thread's workspace.
+     */
+    private double[] logits(double[] inputs) {
+        Workspace workspace = threadWorkspace();
+        double[] layerInputs = inputs;
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].feedForward(layerInputs, workspace.quantizedInputs[i], workspace.activations[i]);
+            layerInputs = workspace.activations[i];
+        }
+        return layerInputs;
+    }
+    
+    /**
+     * Returns the calling thread's workspace, creating it on first use.
+     */
+    private Workspace threadWorkspace() {
+        Workspace workspace = workspaces.get();
+        if (workspace == null) {
+            workspace = new Workspace(layers);
+            workspaces.set(workspace);
+        }
+        return workspace;
+    }
+    
+    /**
+     * Returns the fraction of the calibration inputs for which this network predicts the same class as the network
+     * it was quantized from. A value noticeably below one means the calibration sample or eight bits are not enough
+     * for this model.
+     *
+     * @return The argmax agreement on the calibration set, between 0 and 1.
+     */
+    public double getCalibrationAgreement() {
+        return calibrationAgreement;
+    }
+    
+    /**
+     * Returns the layers of the network, ending with the linear output layer.
+     *
+     * @return The array of layers in feed-forward order.
+     */
+    public QuantizedLayer[] getLayers() {
+        return layers;
+    }
+    
+    /**
+     * The quantized inputs and outputs of every layer for one thread. It holds only buffers sized from the layers, not
+     * the network, so a thread's copy does not keep a discarded network reachable.
+     */
+    private static final class Workspace {
+        final byte[][] quantizedInputs;
+        final double[][] activations;
+        
+        Workspace(QuantizedLayer[] layers) {
+            quantizedInputs = new byte[layers.length][];
+            activations = new double[layers.length][];
+            for (int i = 0; i < layers.length; i++) {
+                quantizedInputs[i] = new byte[layers[i].getInputSize()];
+                activations[i] = new double[layers[i].getLayerSize()];
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.lang.foreign.MemorySegment;
+
+/**
+ * RMSProp, which divides every gradient by a running root mean square of its recent values, so that parameters with
+ * consistently large gradients take smaller steps.
+ */
+public class RMSProp implements Optimizer {
+    private final double decay;
+    private final double epsilon;
+    
+    /**
+     * Constructs RMSProp with a decay of 0.9 and an epsilon of 1e-8.
+     */
+    public RMSProp() {
+        this(0.9, 1e-8);
+    }
+    
+    /**
+     * Constructs RMSProp with the given hyperparameters.
+     *
+     * @param decay The fraction of the mean square kept from one step to the next, in [0, 1).
+     * @param epsilon The value added to the root mean square to avoid division by zero.
+     */
+    public RMSProp(double decay, double epsilon) {
+        if (decay < 0 || decay >= 1 || epsilon <= 0) {
+            throw new IllegalArgumentException("Decay must be in [0, 1) and epsilon must be positive.");
+        }
+        this.decay = decay;
+        this.epsilon = epsilon;
+    }
+    
+    @Override
+    public int stateSize() {
+        return 1;
+    }
+    
+    @Override
+    public void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                       double[][] state, int stateOffset, int length, double gradientScale, double learningRate,
+                       long step) {
+        MathUtilities.rmsPropUpdate(parameters, parameterOffset, gradients, gradientOffset, state[0], stateOffset,
+                                    length, gradientScale, learningRate, decay, epsilon);
+    }
+    
+    @Override
+    public void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients, long gradientOffset,
+                       MemorySegment[] state, long stateOffset, int length, double gradientScale,
+                       double learningRate, long step) {
+        MathUtilities.rmsPropUpdate(parameters, parameterOffset, gradients, gradientOffset, state[0], stateOffset,
+                                    length, gradientScale, learningRate, decay, epsilon);
+    }
+}
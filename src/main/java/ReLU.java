@@ -23,4 +23,29 @@ public class ReLU implements ActivationFunction {
                1;
     }
     
+    /**
+     * Applies the rectified linear unit to a range of values with a SIMD kernel.
+     *
+     * @param inputs Array containing the input values.
+     * @param outputs Array receiving the outputs; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    @Override
+    public void activate(double[] inputs, double[] outputs, int from, int to) {
+        MathUtilities.relu(inputs, outputs, from, to);
+    }
+    
+    /**
+     * Computes the derivative of the rectified linear unit over a range of values with a SIMD kernel.
+     *
+     * @param inputs Array containing the points at which the derivative is evaluated.
+     * @param derivatives Array receiving the derivatives; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    @Override
+    public void deriveInto(double[] inputs, double[] derivatives, int from, int to) {
+        MathUtilities.reluDerivative(inputs, derivatives, from, to);
+    }
 }
@@ -0,0 +1,34 @@
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Plain stochastic gradient descent, which moves every parameter against its gradient by the learning rate.
+ */
+public class SGD implements Optimizer {
+    
+    @Override
+    public int stateSize() {
+        return 0;
+    }
+    
+    /**
+     * Subtracts the scaled gradients from the parameters.
+     */
+    @Override
+    public void update(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                       double[][] state, int stateOffset, int length, double gradientScale, double learningRate,
+                       long step) {
+        MathUtilities.addScaled(parameters, parameterOffset, gradients, gradientOffset, -learningRate * gradientScale,
+                                length);
+    }
+    
+    /**
+     * Subtracts the scaled off-heap gradients from the off-heap parameters.
+     */
+    @Override
+    public void update(MemorySegment parameters, long parameterOffset, MemorySegment gradients, long gradientOffset,
+                       MemorySegment[] state, long stateOffset, int length, double gradientScale,
+                       double learningRate, long step) {
+        MathUtilities.addScaled(parameters, parameterOffset, gradients, gradientOffset, -learningRate * gradientScale,
+                                length);
+    }
+}
@@ -33,4 +33,30 @@ public class Sigmoid implements ActivationFunction {
         double sigmoid = activate(x);
         return sigmoid * (1 - sigmoid);
     }
+    
+    /**
+     * Applies the sigmoid function to a range of values with a SIMD kernel.
+     *
+     * @param inputs Array containing the input values.
+     * @param outputs Array receiving the outputs; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    @Override
+    public void activate(double[] inputs, double[] outputs, int from, int to) {
+        MathUtilities.sigmoid(inputs, outputs, from, to, ROUNDING_THRESHOLD);
+    }
+    
+    /**
+     * Computes the derivative of the sigmoid function over a range of values with a SIMD kernel.
+     *
+     * @param inputs Array containing the points at which the derivative is evaluated.
+     * @param derivatives Array receiving the derivatives; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    @Override
+    public void deriveInto(double[] inputs, double[] derivatives, int from, int to) {
+        MathUtilities.sigmoidDerivative(inputs, derivatives, from, to, ROUNDING_THRESHOLD);
+    }
 }
@@ -21,4 +21,30 @@ public class Tanh implements ActivationFunction {
         double tanh = Math.tanh(x);
         return 1 - tanh * tanh;
     }
+    
+    /**
+     * Applies the tanh function to a range of values with a SIMD kernel.
+     *
+     * @param inputs Array containing the input values.
+     * @param outputs Array receiving the outputs; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    @Override
+    public void activate(double[] inputs, double[] outputs, int from, int to) {
+        MathUtilities.tanh(inputs, outputs, from, to);
+    }
+    
+    /**
+     * Computes the derivative of the tanh function over a range of values with a SIMD kernel.
+     *
+     * @param inputs Array containing the points at which the derivative is evaluated.
+     * @param derivatives Array receiving the derivatives; may be the inputs array.
+     * @param from Index of the first value, inclusive.
+     * @param to Index of the last value, exclusive.
+     */
+    @Override
+    public void deriveInto(double[] inputs, double[] derivatives, int from, int to) {
+        MathUtilities.tanhDerivative(inputs, derivatives, from, to);
+    }
 }
@@ -0,0 +1,44 @@
+/**
+ * Receives progress and performance metrics from the training methods of {@link NeuralNetwork} and
+ * {@link FloatNeuralNetwork}.
+ * Every method has an empty default implementation, so listeners override only the events they need.
+ * The methods are called on the thread that called the training method, between batches, never concurrently.
+ * Batch events are only reported by minibatch training; per-example and Hogwild training report epochs only.
+ */
+public interface TrainingListener {
+    
+    /**
+     * Called before the first example of an epoch is processed.
+     *
+     * @param epoch The number of the epoch, starting at 1.
+     * @param epochs The number of epochs of the training run.
+     */
+    default void epochStarted(int epoch, int epochs) {
+    }
+    
+    /**
+     * Called before a minibatch is processed.
+     *
+     * @param epoch The number of the epoch, starting at 1.
+     * @param batch The number of the batch within the epoch, starting at 1.
+     * @param batches The number of batches in the epoch.
+     */
+    default void batchStarted(int epoch, int batch, int batches) {
+    }
+    
+    /**
+     * Called after the update of a minibatch has been applied.
+     *
+     * @param metrics The loss and timings of the batch.
+     */
+    default void batchFinished(BatchMetrics metrics) {
+    }
+    
+    /**
+     * Called after the last example of an epoch has been processed.
+     *
+     * @param metrics The loss, throughput, timings and allocations of the epoch.
+     */
+    default void epochFinished(EpochMetrics metrics) {
+    }
+}
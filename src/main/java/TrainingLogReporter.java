@@ -0,0 +1,137 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes training metrics as machine-readable records, one line per epoch and optionally one per batch, so that
+ * schedulers and dashboards can follow a training run by tailing a file. Every line is flushed as soon as it is
+ * written. Both formats carry the same fields: {@code event} ({@code "epoch"} or {@code "batch"}), {@code epoch},
+ * {@code batch}, {@code samples}, {@code loss}, {@code duration_ns}, {@code samples_per_second}, {@code forward_ns},
+ * {@code backward_ns}, {@code update_ns} and {@code allocated_bytes}. Fields that do not apply to an event are empty
+ * in CSV and absent in JSON Lines.
+ */
+public class TrainingLogReporter implements TrainingListener, Closeable {
+    private static final String[] FIELDS = {"event", "epoch", "batch", "samples", "loss", "duration_ns",
+                                            "samples_per_second", "forward_ns", "backward_ns", "update_ns",
+                                            "allocated_bytes"};
+    private final Writer writer;
+    private final Format format;
+    private final boolean includeBatches;
+    
+    /**
+     * The record format of a {@link TrainingLogReporter}.
+     */
+    public enum Format {
+        /** Comma-separated values with a header line. */
+        CSV,
+        /** One JSON object per line. */
+        JSON_LINES
+    }
+    
+    /**
+     * Constructs a reporter that writes to a file, replacing any existing file.
+     *
+     * @param path The file to write.
+     * @param format The record format.
+     * @param includeBatches Whether to write a record for every batch in addition to every epoch.
+     * @throws IOException if the file cannot be created.
+     */
+    public TrainingLogReporter(Path path, Format format, boolean includeBatches) throws IOException {
+        this(Files.newBufferedWriter(path), format, includeBatches);
+    }
+    
+    /**
+     * Constructs a reporter that writes to a writer, which it closes when it is closed.
+     *
+     * @param writer The writer receiving the records.
+     * @param format The record format.
+     * @param includeBatches Whether to write a record for every batch in addition to every epoch.
+     */
+    public TrainingLogReporter(Writer writer, Format format, boolean includeBatches) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        this.format = format;
+        this.includeBatches = includeBatches;
+        if (format == Format.CSV) {
+            writeLine(String.join(",", FIELDS));
+        }
+    }
+    
+    @Override
+    public void batchFinished(BatchMetrics metrics) {
+        if (!includeBatches) {
+            return;
+        }
+        write("batch", metrics.epoch(), metrics.batch(), metrics.samples(), metrics.averageLoss(),
+              metrics.durationNanos(), metrics.samplesPerSecond(), metrics.forwardNanos(), metrics.backwardNanos(),
+              metrics.updateNanos(), null);
+    }
+    
+    @Override
+    public void epochFinished(EpochMetrics metrics) {
+        write("epoch", metrics.epoch(), null, metrics.samples(), metrics.averageLoss(), metrics.durationNanos(),
+              metrics.samplesPerSecond(), metrics.forwardNanos(), metrics.backwardNanos(), metrics.updateNanos(),
+              metrics.allocatedBytes());
+    }
+    
+    /**
+     * Closes the underlying writer.
+     *
+     * @throws IOException if an I/O error occurs while closing it.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+    
+    private void write(String event, int epoch, Integer batch, int samples, double loss, long durationNanos,
+                       double samplesPerSecond, long forwardNanos, long backwardNanos, long updateNanos,
+                       Long allocatedBytes) {
+        Object[] values = {event, epoch, batch, samples, loss, durationNanos, samplesPerSecond, forwardNanos,
+                           backwardNanos, updateNanos, allocatedBytes};
+        StringBuilder line = new StringBuilder();
+        if (format == Format.CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                if (values[i] != null) {
+                    line.append(values[i]);
+                }
+            }
+        } else {
+            line.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    continue;
+                }
+                if (line.length() > 1) {
+                    line.append(',');
+                }
+                line.append('"').append(FIELDS[i]).append("\":");
+                if (values[i] instanceof String string) {
+                    line.append('"').append(string).append('"');
+                } else if (values[i] instanceof Double number && !Double.isFinite(number)) {
+                    line.append("null");
+                } else {
+                    line.append(values[i]);
+                }
+            }
+            line.append('}');
+        }
+        writeLine(line.toString());
+    }
+    
+    private void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write training metrics.", e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Holds the buffers one training worker needs to compute the gradients of a shard of a minibatch:
+ * the gathered inputs and targets, every layer's weighted sums, activations and errors as row-major matrices, and one weight and
+ * bias gradient per layer. Workers never write to the layers, so several workspaces can compute gradients for the
+ * same network at once and be reduced before a single update. A workspace with a capacity of one row also serves as the
+ * per-thread state of lock-free stochastic gradient descent. The weight gradients of off-heap layers can be
+ * allocated off-heap as well, next to the weights they update.
+ */
+final class TrainingWorkspace {
+    private final Layer[] layers;
+    private final int capacity;
+    private final double[] inputs;
+    private final double[] targets;
+    private final double[][] preActivations;
+    private final double[][] activations;
+    private final double[][] errors;
+    private final double[][] weightGradients;
+    private final MemorySegment[] weightGradientSegments;
+    private final double[][] biasGradients;
+    private long forwardNanos;
+    private long backwardNanos;
+    private long updateNanos;
+    private long allocatedBytes;
+    
+    /**
+     * Constructs a workspace for the given layers.
+     *
+     * @param layers The layers of the network in feed-forward order.
+     * @param capacity The largest number of rows this workspace processes at once.
+     */
+    TrainingWorkspace(Layer[] layers, int capacity) {
+        this(layers, capacity, null);
+    }
+    
+    /**
+     * Constructs a workspace for the given layers, allocating the weight gradients of off-heap layers from an arena.
+     *
+     * @param layers The layers of the network in feed-forward order.
+     * @param capacity The largest number of rows this workspace processes at once.
+     * @param arena The arena providing the weight gradients of off-heap layers, or null to keep every gradient on
+     *              the heap.
+     */
+    TrainingWorkspace(Layer[] layers, int capacity, Arena arena) {
+        this.layers = layers;
+        this.capacity = capacity;
+        this.inputs = new double[capacity * layers[0].getInputSize()];
+        this.targets = new double[layers[layers.length - 1].getLayerSize()];
+        this.preActivations = new double[layers.length][];
+        this.activations = new double[layers.length][];
+        this.errors = new double[layers.length][];
+        this.weightGradients = new double[layers.length][];
+        this.weightGradientSegments = new MemorySegment[layers.length];
+        this.biasGradients = new double[layers.length][];
+        for (int i = 0; i < layers.length; i++) {
+            preActivations[i] = new double[capacity * layers[i].getLayerSize()];
+            activations[i] = new double[capacity * layers[i].getLayerSize()];
+            errors[i] = new double[capacity * layers[i].getLayerSize()];
+            if (arena != null && layers[i].isOffHeap()) {
+                weightGradientSegments[i] = arena.allocate(layers[i].weightSegment().byteSize(),
+                                                           Layer.SEGMENT_ALIGNMENT);
+            } else {
+                weightGradients[i] = new double[layers[i].getLayerSize() * layers[i].getInputSize()];
+            }
+            biasGradients[i] = new double[layers[i].getLayerSize()];
+        }
+    }
+    
+    /**
+     * Computes the gradients summed over a range of training examples, replacing the previous contents of this
+     * workspace. The inputs of the examples are gathered from the dataset in its current order.
+     *
+     * @param dataset The training data.
+     * @param start The position of the first example, inclusive.
+     * @param end The position of the last example, exclusive.
+     * @param lossFunction The loss function to differentiate.
+     * @return The summed loss of the examples.
+     */
+    double computeGradients(Dataset dataset, int start, int end, LossFunction lossFunction) {
+        int rows = end - start;
+        if (rows > capacity) {
+            throw new IllegalArgumentException("Number of rows must not exceed the workspace capacity.");
+        }
+        long startTime = System.nanoTime();
+        long startAllocation = Allocations.currentThread();
+        int inputSize = layers[0].getInputSize();
+        double[] data = dataset.data();
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, dataset.inputOffset(start + i), inputs, i * inputSize, inputSize);
+        }
+        
+        double[] layerInputs = inputs;
+        for (int i = 0; i < layers.length; i++) {
+            LayerForwardEvent event = new LayerForwardEvent();
+            event.begin();
+            layers[i].feedForward(layerInputs, rows, preActivations[i], activations[i]);
+            event.commit(i, layers[i], rows);
+            layerInputs = activations[i];
+        }
+        
+        int last = layers.length - 1;
+        int outputSize = layers[last].getLayerSize();
+        double totalLoss = 0;
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, dataset.outputOffset(start + i), targets, 0, outputSize);
+            totalLoss += lossFunction.calculateSoftmaxLoss(activations[last], i * outputSize, targets, errors[last],
+                                                           i * outputSize, outputSize);
+        }
+        long forwardEnd = System.nanoTime();
+        
+        for (int i = last; i >= 0; i--) {
+            double[] layerInput = i > 0 ? activations[i - 1] : inputs;
+            double[] previousLayerErrors = i > 0 ? errors[i - 1] : null;
+            LayerBackwardEvent event = new LayerBackwardEvent();
+            event.begin();
+            if (weightGradients[i] != null) {
+                layers[i].computeGradients(errors[i], preActivations[i], layerInput, rows, weightGradients[i],
+                                           biasGradients[i], previousLayerErrors);
+            } else {
+                layers[i].computeGradients(errors[i], preActivations[i], layerInput, rows, weightGradientSegments[i],
+                                           biasGradients[i], previousLayerErrors);
+            }
+            event.commit(i, layers[i], rows);
+        }
+        long backwardEnd = System.nanoTime();
+        forwardNanos += forwardEnd - startTime;
+        backwardNanos += backwardEnd - forwardEnd;
+        allocatedBytes += Allocations.currentThread() - startAllocation;
+        return totalLoss;
+    }
+    
+    /**
+     * Runs one step of stochastic gradient descent on a single example, updating the layers directly.
+     * The activations and errors stay in this workspace, so one workspace per thread lets several threads train
+     * the same layers at once without locking. Requires a workspace with a capacity of one row.
+     *
+     * @param dataset The training data.
+     * @param position The position of the example in the current order of the dataset.
+     * @param learningRate The learning rate used for weight updates.
+     * @param lossFunction The loss function to differentiate.
+     * @return The loss of the example before the update.
+     */
+    double trainSample(Dataset dataset, int position, double learningRate, LossFunction lossFunction) {
+        long startTime = System.nanoTime();
+        System.arraycopy(dataset.data(), dataset.inputOffset(position), inputs, 0, inputs.length);
+        System.arraycopy(dataset.data(), dataset.outputOffset(position), targets, 0, targets.length);
+        double[] layerInputs = inputs;
+        for (int i = 0; i < layers.length; i++) {
+            layers[i].feedForward(layerInputs, preActivations[i], activations[i]);
+            layerInputs = activations[i];
+        }
+        
+        int last = layers.length - 1;
+        double loss = lossFunction.calculateSoftmaxLoss(activations[last], 0, targets, errors[last], 0,
+                                                        targets.length);
+        long forwardEnd = System.nanoTime();
+        
+        for (int i = last; i >= 0; i--) {
+            double[] layerInput = i > 0 ? activations[i - 1] : inputs;
+            double[] previousLayerErrors = i > 0 ? errors[i - 1] : null;
+            layers[i].backPropagate(errors[i], layerInput, preActivations[i], learningRate, previousLayerErrors);
+        }
+        long backwardEnd = System.nanoTime();
+        forwardNanos += forwardEnd - startTime;
+        backwardNanos += backwardEnd - forwardEnd;
+        return loss;
+    }
+    
+    /**
+     * Adds the gradients held by another workspace to the gradients of this one.
+     *
+     * @param other A workspace for the same layers.
+     */
+    void add(TrainingWorkspace other) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < layers.length; i++) {
+            if (weightGradients[i] != null) {
+                MathUtilities.addScaled(weightGradients[i], 0, other.weightGradients[i], 0, 1,
+                                        weightGradients[i].length);
+            } else {
+                MathUtilities.addScaled(weightGradientSegments[i], 0, other.weightGradientSegments[i], 0, 1,
+                                        layers[i].getLayerSize() * layers[i].getInputSize());
+            }
+            MathUtilities.addScaled(biasGradients[i], 0, other.biasGradients[i], 0, 1, biasGradients[i].length);
+        }
+        updateNanos += System.nanoTime() - startTime;
+    }
+    
+    /**
+     * Takes one optimizer step on every layer using the gradients held by this workspace.
+     *
+     * @param gradientScale The factor applied to the gradients, typically one over the batch size.
+     * @param learningRate The learning rate of this step.
+     * @param states The optimizer state of every layer.
+     */
+    void applyGradients(double gradientScale, double learningRate, OptimizerState[] states) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < layers.length; i++) {
+            if (weightGradients[i] != null) {
+                layers[i].applyGradients(weightGradients[i], biasGradients[i], gradientScale, learningRate,
+                                         states[i]);
+            } else {
+                layers[i].applyGradients(weightGradientSegments[i], biasGradients[i], gradientScale, learningRate,
+                                         states[i]);
+            }
+        }
+        updateNanos += System.nanoTime() - startTime;
+    }
+    
+    /**
+     * Returns the time this workspace spent in forward passes and the loss since its timings were last reset.
+     *
+     * @return The forward time in nanoseconds.
+     */
+    long forwardNanos() {
+        return forwardNanos;
+    }
+    
+    /**
+     * Returns the time this workspace spent back-propagating since its timings were last reset, including the
+     * weight updates of {@link #trainSample}.
+     *
+     * @return The backward time in nanoseconds.
+     */
+    long backwardNanos() {
+        return backwardNanos;
+    }
+    
+    /**
+     * Returns the time this workspace spent summing gradients and applying them since its timings were last reset.
+     *
+     * @return The update time in nanoseconds.
+     */
+    long updateNanos() {
+        return updateNanos;
+    }
+    
+    /**
+     * Returns the heap bytes allocated while this workspace computed gradients since its timings were last reset,
+     * plus any recorded with {@link #addAllocatedBytes(long)}.
+     *
+     * @return The allocated bytes.
+     */
+    long allocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * Records bytes allocated on behalf of this workspace by the thread that uses it.
+     *
+     * @param bytes The number of bytes allocated.
+     */
+    void addAllocatedBytes(long bytes) {
+        allocatedBytes += bytes;
+    }
+    
+    /**
+     * Resets the timings and allocation count of this workspace to zero.
+     */
+    void resetTimings() {
+        forwardNanos = 0;
+        backwardNanos = 0;
+        updateNanos = 0;
+        allocatedBytes = 0;
+    }
+}
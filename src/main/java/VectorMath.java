@@ -0,0 +1,597 @@
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementations of the vector kernels in {@link MathUtilities}, written against the JDK Vector API.
+ * This class is only loaded when the {@code jdk.incubator.vector} module is part of the boot layer,
+ * so callers must go through {@link MathUtilities}, which falls back to scalar loops otherwise.
+ */
+final class VectorMath {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    // Bytes that widen to exactly four int vectors
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+    
+    private VectorMath() {
+    }
+    
+    /**
+     * Calculates the dot product of two vectors stored at offsets within larger arrays.
+     * Two vector accumulators are used so that consecutive fused multiply-adds do not wait on each other.
+     */
+    static double dotProduct(double[] vectorA, int offsetA, double[] vectorB, int offsetB, int length) {
+        int step = SPECIES.length();
+        DoubleVector sum0 = DoubleVector.zero(SPECIES);
+        DoubleVector sum1 = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i <= length - 2 * step; i += 2 * step) {
+            DoubleVector a0 = DoubleVector.fromArray(SPECIES, vectorA, offsetA + i);
+            DoubleVector b0 = DoubleVector.fromArray(SPECIES, vectorB, offsetB + i);
+            DoubleVector a1 = DoubleVector.fromArray(SPECIES, vectorA, offsetA + i + step);
+            DoubleVector b1 = DoubleVector.fromArray(SPECIES, vectorB, offsetB + i + step);
+            sum0 = a0.fma(b0, sum0);
+            sum1 = a1.fma(b1, sum1);
+        }
+        for (; i <= length - step; i += step) {
+            DoubleVector a0 = DoubleVector.fromArray(SPECIES, vectorA, offsetA + i);
+            DoubleVector b0 = DoubleVector.fromArray(SPECIES, vectorB, offsetB + i);
+            sum0 = a0.fma(b0, sum0);
+        }
+        double product = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            product += vectorA[offsetA + i] * vectorB[offsetB + i];
+        }
+        return product;
+    }
+    
+    /**
+     * Calculates the dot product of a vector of little-endian doubles in a memory segment and a vector in an array.
+     */
+    static double dotProduct(MemorySegment segment, long offset, double[] vector, int vectorOffset, int length) {
+        int step = SPECIES.length();
+        long stride = (long) step * Double.BYTES;
+        DoubleVector sum0 = DoubleVector.zero(SPECIES);
+        DoubleVector sum1 = DoubleVector.zero(SPECIES);
+        long position = offset;
+        int i = 0;
+        for (; i <= length - 2 * step; i += 2 * step, position += 2 * stride) {
+            DoubleVector a0 = DoubleVector.fromMemorySegment(SPECIES, segment, position, ByteOrder.LITTLE_ENDIAN);
+            DoubleVector b0 = DoubleVector.fromArray(SPECIES, vector, vectorOffset + i);
+            DoubleVector a1 = DoubleVector.fromMemorySegment(SPECIES, segment, position + stride,
+                                                             ByteOrder.LITTLE_ENDIAN);
+            DoubleVector b1 = DoubleVector.fromArray(SPECIES, vector, vectorOffset + i + step);
+            sum0 = a0.fma(b0, sum0);
+            sum1 = a1.fma(b1, sum1);
+        }
+        for (; i <= length - step; i += step, position += stride) {
+            DoubleVector a0 = DoubleVector.fromMemorySegment(SPECIES, segment, position, ByteOrder.LITTLE_ENDIAN);
+            DoubleVector b0 = DoubleVector.fromArray(SPECIES, vector, vectorOffset + i);
+            sum0 = a0.fma(b0, sum0);
+        }
+        double product = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++, position += Double.BYTES) {
+            product += segment.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, position) * vector[vectorOffset + i];
+        }
+        return product;
+    }
+    
+    /**
+     * Adds a scaled vector in an array to a vector of little-endian doubles in a memory segment in place.
+     */
+    static void addScaled(MemorySegment target, long targetOffset, double[] source, int sourceOffset, double scale,
+                          int length) {
+        int step = SPECIES.length();
+        long stride = (long) step * Double.BYTES;
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, scale);
+        long position = targetOffset;
+        int i = 0;
+        for (; i <= length - step; i += step, position += stride) {
+            DoubleVector t = DoubleVector.fromMemorySegment(SPECIES, target, position, ByteOrder.LITTLE_ENDIAN);
+            DoubleVector s = DoubleVector.fromArray(SPECIES, source, sourceOffset + i);
+            s.fma(factor, t).intoMemorySegment(target, position, ByteOrder.LITTLE_ENDIAN);
+        }
+        for (; i < length; i++, position += Double.BYTES) {
+            double value = target.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, position) + scale * source[sourceOffset + i];
+            target.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, position, value);
+        }
+    }
+    
+    /**
+     * Adds a scaled vector of little-endian doubles in a memory segment to a vector in an array in place.
+     */
+    static void addScaled(double[] target, int targetOffset, MemorySegment source, long sourceOffset, double scale,
+                          int length) {
+        int step = SPECIES.length();
+        long stride = (long) step * Double.BYTES;
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, scale);
+        long position = sourceOffset;
+        int i = 0;
+        for (; i <= length - step; i += step, position += stride) {
+            DoubleVector t = DoubleVector.fromArray(SPECIES, target, targetOffset + i);
+            DoubleVector s = DoubleVector.fromMemorySegment(SPECIES, source, position, ByteOrder.LITTLE_ENDIAN);
+            s.fma(factor, t).intoArray(target, targetOffset + i);
+        }
+        for (; i < length; i++, position += Double.BYTES) {
+            target[targetOffset + i] += scale * source.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, position);
+        }
+    }
+    
+    /**
+     * Adds a scaled vector of little-endian doubles to another in place, where both are stored in off-heap memory
+     * segments.
+     */
+    static void addScaled(MemorySegment target, long targetOffset, MemorySegment source, long sourceOffset,
+                          double scale, int length) {
+        int step = SPECIES.length();
+        long stride = (long) step * Double.BYTES;
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, scale);
+        long t = targetOffset;
+        long s = sourceOffset;
+        int i = 0;
+        for (; i <= length - step; i += step, t += stride, s += stride) {
+            DoubleVector target0 = DoubleVector.fromMemorySegment(SPECIES, target, t, ByteOrder.LITTLE_ENDIAN);
+            DoubleVector source0 = DoubleVector.fromMemorySegment(SPECIES, source, s, ByteOrder.LITTLE_ENDIAN);
+            source0.fma(factor, target0).intoMemorySegment(target, t, ByteOrder.LITTLE_ENDIAN);
+        }
+        for (; i < length; i++, t += Double.BYTES, s += Double.BYTES) {
+            double value = target.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, t)
+                           + scale * source.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, s);
+            target.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, t, value);
+        }
+    }
+    
+    /**
+     * Adds a scaled vector to a target vector in place, target += scale * source.
+     */
+    static void addScaled(double[] target, int targetOffset, double[] source, int sourceOffset,
+                          double scale, int length) {
+        int step = SPECIES.length();
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, scale);
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            DoubleVector t = DoubleVector.fromArray(SPECIES, target, targetOffset + i);
+            DoubleVector s = DoubleVector.fromArray(SPECIES, source, sourceOffset + i);
+            s.fma(factor, t).intoArray(target, targetOffset + i);
+        }
+        for (; i < length; i++) {
+            target[targetOffset + i] += scale * source[sourceOffset + i];
+        }
+    }
+    
+    /**
+     * Updates a row of weights, row -= step * inputs, and accumulates errors += delta * row in the same pass.
+     */
+    static void updateAndPropagate(double[] weights, int rowOffset, double[] inputs, double step, double[] errors,
+                                   double delta, int length) {
+        int lanes = SPECIES.length();
+        DoubleVector negativeStep = DoubleVector.broadcast(SPECIES, -step);
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, delta);
+        int i = 0;
+        for (; i <= length - lanes; i += lanes) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, i);
+            DoubleVector w = x.fma(negativeStep, DoubleVector.fromArray(SPECIES, weights, rowOffset + i));
+            w.intoArray(weights, rowOffset + i);
+            w.fma(factor, DoubleVector.fromArray(SPECIES, errors, i)).intoArray(errors, i);
+        }
+        for (; i < length; i++) {
+            double weight = weights[rowOffset + i] - step * inputs[i];
+            weights[rowOffset + i] = weight;
+            errors[i] += delta * weight;
+        }
+    }
+    
+    /**
+     * Writes the elementwise sum of two vectors into the result.
+     */
+    static void add(double[] vectorA, double[] vectorB, double[] result) {
+        int step = SPECIES.length();
+        int i = 0;
+        for (; i <= result.length - step; i += step) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, vectorA, i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, vectorB, i);
+            a.add(b).intoArray(result, i);
+        }
+        for (; i < result.length; i++) {
+            result[i] = vectorA[i] + vectorB[i];
+        }
+    }
+    
+    /**
+     * Writes the elementwise difference of two vectors into the result.
+     */
+    static void subtract(double[] vectorA, double[] vectorB, double[] result) {
+        int step = SPECIES.length();
+        int i = 0;
+        for (; i <= result.length - step; i += step) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, vectorA, i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, vectorB, i);
+            a.sub(b).intoArray(result, i);
+        }
+        for (; i < result.length; i++) {
+            result[i] = vectorA[i] - vectorB[i];
+        }
+    }
+    
+    /**
+     * Calculates the squared Euclidean distance between two points.
+     */
+    static double squaredDistance(double[] pointA, double[] pointB) {
+        int step = SPECIES.length();
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i <= pointA.length - step; i += step) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, pointA, i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, pointB, i);
+            DoubleVector difference = a.sub(b);
+            sum = difference.fma(difference, sum);
+        }
+        double squaredDistance = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < pointA.length; i++) {
+            double difference = pointA[i] - pointB[i];
+            squaredDistance += difference * difference;
+        }
+        return squaredDistance;
+    }
+    
+    /**
+     * Divides every element of a vector by a divisor in place.
+     */
+    static void divide(double[] vector, double divisor) {
+        int step = SPECIES.length();
+        DoubleVector denominator = DoubleVector.broadcast(SPECIES, divisor);
+        int i = 0;
+        for (; i <= vector.length - step; i += step) {
+            DoubleVector.fromArray(SPECIES, vector, i).div(denominator).intoArray(vector, i);
+        }
+        for (; i < vector.length; i++) {
+            vector[i] /= divisor;
+        }
+    }
+    
+    /**
+     * Calculates the single-precision dot product of two vectors stored at offsets within larger arrays.
+     */
+    static float dotProduct(float[] vectorA, int offsetA, float[] vectorB, int offsetB, int length) {
+        int step = FLOAT_SPECIES.length();
+        FloatVector sum0 = FloatVector.zero(FLOAT_SPECIES);
+        FloatVector sum1 = FloatVector.zero(FLOAT_SPECIES);
+        int i = 0;
+        for (; i <= length - 2 * step; i += 2 * step) {
+            FloatVector a0 = FloatVector.fromArray(FLOAT_SPECIES, vectorA, offsetA + i);
+            FloatVector b0 = FloatVector.fromArray(FLOAT_SPECIES, vectorB, offsetB + i);
+            FloatVector a1 = FloatVector.fromArray(FLOAT_SPECIES, vectorA, offsetA + i + step);
+            FloatVector b1 = FloatVector.fromArray(FLOAT_SPECIES, vectorB, offsetB + i + step);
+            sum0 = a0.fma(b0, sum0);
+            sum1 = a1.fma(b1, sum1);
+        }
+        for (; i <= length - step; i += step) {
+            FloatVector a0 = FloatVector.fromArray(FLOAT_SPECIES, vectorA, offsetA + i);
+            FloatVector b0 = FloatVector.fromArray(FLOAT_SPECIES, vectorB, offsetB + i);
+            sum0 = a0.fma(b0, sum0);
+        }
+        float product = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            product += vectorA[offsetA + i] * vectorB[offsetB + i];
+        }
+        return product;
+    }
+    
+    /**
+     * Adds a scaled single-precision vector to a target vector in place, target += scale * source.
+     */
+    static void addScaled(float[] target, int targetOffset, float[] source, int sourceOffset,
+                          float scale, int length) {
+        int step = FLOAT_SPECIES.length();
+        FloatVector factor = FloatVector.broadcast(FLOAT_SPECIES, scale);
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            FloatVector t = FloatVector.fromArray(FLOAT_SPECIES, target, targetOffset + i);
+            FloatVector s = FloatVector.fromArray(FLOAT_SPECIES, source, sourceOffset + i);
+            s.fma(factor, t).intoArray(target, targetOffset + i);
+        }
+        for (; i < length; i++) {
+            target[targetOffset + i] += scale * source[sourceOffset + i];
+        }
+    }
+    
+    /**
+     * Calculates the dot product of two vectors of signed bytes with 32-bit accumulation. Each byte vector is widened
+     * to four int vectors, which are multiplied and accumulated lane by lane.
+     */
+    static int dotProduct(byte[] vectorA, int offsetA, byte[] vectorB, int offsetB, int length) {
+        int step = BYTE_SPECIES.length();
+        IntVector sum0 = IntVector.zero(INT_SPECIES);
+        IntVector sum1 = IntVector.zero(INT_SPECIES);
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            ByteVector a = ByteVector.fromArray(BYTE_SPECIES, vectorA, offsetA + i);
+            ByteVector b = ByteVector.fromArray(BYTE_SPECIES, vectorB, offsetB + i);
+            for (int part = 0; part < 4; part += 2) {
+                IntVector a0 = (IntVector) a.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                IntVector b0 = (IntVector) b.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                IntVector a1 = (IntVector) a.convertShape(VectorOperators.B2I, INT_SPECIES, part + 1);
+                IntVector b1 = (IntVector) b.convertShape(VectorOperators.B2I, INT_SPECIES, part + 1);
+                sum0 = a0.mul(b0).add(sum0);
+                sum1 = a1.mul(b1).add(sum1);
+            }
+        }
+        int product = sum0.add(sum1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            product += vectorA[offsetA + i] * vectorB[offsetB + i];
+        }
+        return product;
+    }
+    
+    /**
+     * Applies the fused Adam update of {@link MathUtilities#adamUpdate}.
+     */
+    static void adamUpdate(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                           double[] mean, double[] variance, int stateOffset, int length, double gradientScale,
+                           double stepSize, double beta1, double beta2, double varianceCorrection, double epsilon,
+                           double decay) {
+        int step = SPECIES.length();
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            DoubleVector gradient = DoubleVector.fromArray(SPECIES, gradients, gradientOffset + i).mul(gradientScale);
+            DoubleVector m = DoubleVector.fromArray(SPECIES, mean, stateOffset + i).mul(beta1)
+                                         .add(gradient.mul(1 - beta1));
+            DoubleVector v = DoubleVector.fromArray(SPECIES, variance, stateOffset + i).mul(beta2)
+                                         .add(gradient.mul(gradient).mul(1 - beta2));
+            m.intoArray(mean, stateOffset + i);
+            v.intoArray(variance, stateOffset + i);
+            DoubleVector denominator = v.mul(varianceCorrection).sqrt().add(epsilon);
+            DoubleVector parameter = DoubleVector.fromArray(SPECIES, parameters, parameterOffset + i).mul(decay);
+            parameter.sub(m.mul(stepSize).div(denominator)).intoArray(parameters, parameterOffset + i);
+        }
+        for (; i < length; i++) {
+            double gradient = gradientScale * gradients[gradientOffset + i];
+            double m = beta1 * mean[stateOffset + i] + (1 - beta1) * gradient;
+            double v = beta2 * variance[stateOffset + i] + (1 - beta2) * gradient * gradient;
+            mean[stateOffset + i] = m;
+            variance[stateOffset + i] = v;
+            parameters[parameterOffset + i] = decay * parameters[parameterOffset + i]
+                                              - stepSize * m / (Math.sqrt(v * varianceCorrection) + epsilon);
+        }
+    }
+    
+    /**
+     * Applies the fused Adam update of {@link MathUtilities#adamUpdate} to little-endian doubles in memory segments.
+     */
+    static void adamUpdate(MemorySegment parameters, long parameterOffset, MemorySegment gradients,
+                           long gradientOffset, MemorySegment mean, MemorySegment variance, long stateOffset,
+                           int length, double gradientScale, double stepSize, double beta1, double beta2,
+                           double varianceCorrection, double epsilon, double decay) {
+        int step = SPECIES.length();
+        long stride = (long) step * Double.BYTES;
+        long p = parameterOffset;
+        long g = gradientOffset;
+        long s = stateOffset;
+        int i = 0;
+        for (; i <= length - step; i += step, p += stride, g += stride, s += stride) {
+            DoubleVector gradient = DoubleVector.fromMemorySegment(SPECIES, gradients, g, ByteOrder.LITTLE_ENDIAN)
+                                                .mul(gradientScale);
+            DoubleVector m = DoubleVector.fromMemorySegment(SPECIES, mean, s, ByteOrder.LITTLE_ENDIAN).mul(beta1)
+                                         .add(gradient.mul(1 - beta1));
+            DoubleVector v = DoubleVector.fromMemorySegment(SPECIES, variance, s, ByteOrder.LITTLE_ENDIAN).mul(beta2)
+                                         .add(gradient.mul(gradient).mul(1 - beta2));
+            m.intoMemorySegment(mean, s, ByteOrder.LITTLE_ENDIAN);
+            v.intoMemorySegment(variance, s, ByteOrder.LITTLE_ENDIAN);
+            DoubleVector denominator = v.mul(varianceCorrection).sqrt().add(epsilon);
+            DoubleVector parameter = DoubleVector.fromMemorySegment(SPECIES, parameters, p, ByteOrder.LITTLE_ENDIAN)
+                                                 .mul(decay);
+            parameter.sub(m.mul(stepSize).div(denominator)).intoMemorySegment(parameters, p, ByteOrder.LITTLE_ENDIAN);
+        }
+        for (; i < length; i++, p += Double.BYTES, g += Double.BYTES, s += Double.BYTES) {
+            double gradient = gradientScale * gradients.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, g);
+            double m = beta1 * mean.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, s) + (1 - beta1) * gradient;
+            double v = beta2 * variance.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, s) + (1 - beta2) * gradient * gradient;
+            mean.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, s, m);
+            variance.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, s, v);
+            double parameter = decay * parameters.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, p)
+                               - stepSize * m / (Math.sqrt(v * varianceCorrection) + epsilon);
+            parameters.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, p, parameter);
+        }
+    }
+    
+    /**
+     * Applies the fused RMSProp update of {@link MathUtilities#rmsPropUpdate}.
+     */
+    static void rmsPropUpdate(double[] parameters, int parameterOffset, double[] gradients, int gradientOffset,
+                              double[] meanSquare, int stateOffset, int length, double gradientScale,
+                              double learningRate, double decay, double epsilon) {
+        int step = SPECIES.length();
+        int i = 0;
+        for (; i <= length - step; i += step) {
+            DoubleVector gradient = DoubleVector.fromArray(SPECIES, gradients, gradientOffset + i).mul(gradientScale);
+            DoubleVector s = DoubleVector.fromArray(SPECIES, meanSquare, stateOffset + i).mul(decay)
+                                         .add(gradient.mul(gradient).mul(1 - decay));
+            s.intoArray(meanSquare, stateOffset + i);
+            DoubleVector parameter = DoubleVector.fromArray(SPECIES, parameters, parameterOffset + i);
+            parameter.sub(gradient.mul(learningRate).div(s.sqrt().add(epsilon)))
+                     .intoArray(parameters, parameterOffset + i);
+        }
+        for (; i < length; i++) {
+            double gradient = gradientScale * gradients[gradientOffset + i];
+            double s = decay * meanSquare[stateOffset + i] + (1 - decay) * gradient * gradient;
+            meanSquare[stateOffset + i] = s;
+            parameters[parameterOffset + i] -= learningRate * gradient / (Math.sqrt(s) + epsilon);
+        }
+    }
+    
+    /**
+     * Applies the fused RMSProp update of {@link MathUtilities#rmsPropUpdate} to little-endian doubles in memory
+     * segments.
+     */
+    static void rmsPropUpdate(MemorySegment parameters, long parameterOffset, MemorySegment gradients,
+                              long gradientOffset, MemorySegment meanSquare, long stateOffset, int length,
+                              double gradientScale, double learningRate, double decay, double epsilon) {
+        int step = SPECIES.length();
+        long stride = (long) step * Double.BYTES;
+        long p = parameterOffset;
+        long g = gradientOffset;
+        long m = stateOffset;
+        int i = 0;
+        for (; i <= length - step; i += step, p += stride, g += stride, m += stride) {
+            DoubleVector gradient = DoubleVector.fromMemorySegment(SPECIES, gradients, g, ByteOrder.LITTLE_ENDIAN)
+                                                .mul(gradientScale);
+            DoubleVector s = DoubleVector.fromMemorySegment(SPECIES, meanSquare, m, ByteOrder.LITTLE_ENDIAN)
+                                         .mul(decay).add(gradient.mul(gradient).mul(1 - decay));
+            s.intoMemorySegment(meanSquare, m, ByteOrder.LITTLE_ENDIAN);
+            DoubleVector parameter = DoubleVector.fromMemorySegment(SPECIES, parameters, p, ByteOrder.LITTLE_ENDIAN);
+            parameter.sub(gradient.mul(learningRate).div(s.sqrt().add(epsilon)))
+                     .intoMemorySegment(parameters, p, ByteOrder.LITTLE_ENDIAN);
+        }
+        for (; i < length; i++, p += Double.BYTES, g += Double.BYTES, m += Double.BYTES) {
+            double gradient = gradientScale * gradients.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, g);
+            double s = decay * meanSquare.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, m)
+                       + (1 - decay) * gradient * gradient;
+            meanSquare.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, m, s);
+            double parameter = parameters.get(MathUtilities.LITTLE_ENDIAN_DOUBLE, p)
+                               - learningRate * gradient / (Math.sqrt(s) + epsilon);
+            parameters.set(MathUtilities.LITTLE_ENDIAN_DOUBLE, p, parameter);
+        }
+    }
+    
+    /**
+     * Applies the rectified linear unit of {@link MathUtilities#relu}.
+     */
+    static void relu(double[] inputs, double[] outputs, int from, int to) {
+        int step = SPECIES.length();
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector.fromArray(SPECIES, inputs, i).max(0.0).intoArray(outputs, i);
+        }
+        for (; i < to; i++) {
+            outputs[i] = Math.max(0, inputs[i]);
+        }
+    }
+    
+    /**
+     * Computes the rectified linear unit derivative of {@link MathUtilities#reluDerivative}.
+     */
+    static void reluDerivative(double[] inputs, double[] derivatives, int from, int to) {
+        int step = SPECIES.length();
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, i);
+            one.blend(zero, x.compare(VectorOperators.LE, 0.0)).intoArray(derivatives, i);
+        }
+        for (; i < to; i++) {
+            derivatives[i] = inputs[i] <= 0 ? 0 : 1;
+        }
+    }
+    
+    /**
+     * Applies the leaky rectified linear unit of {@link MathUtilities#leakyRelu}.
+     */
+    static void leakyRelu(double[] inputs, double[] outputs, int from, int to, double slope) {
+        int step = SPECIES.length();
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, i);
+            x.mul(slope).max(x).intoArray(outputs, i);
+        }
+        for (; i < to; i++) {
+            outputs[i] = Math.max(slope * inputs[i], inputs[i]);
+        }
+    }
+    
+    /**
+     * Computes the leaky rectified linear unit derivative of {@link MathUtilities#leakyReluDerivative}.
+     */
+    static void leakyReluDerivative(double[] inputs, double[] derivatives, int from, int to, double slope) {
+        int step = SPECIES.length();
+        DoubleVector negative = DoubleVector.broadcast(SPECIES, slope);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, i);
+            one.blend(negative, x.compare(VectorOperators.LT, 0.0)).intoArray(derivatives, i);
+        }
+        for (; i < to; i++) {
+            derivatives[i] = inputs[i] < 0 ? slope : 1;
+        }
+    }
+    
+    /**
+     * Applies the logistic sigmoid of {@link MathUtilities#sigmoid}.
+     */
+    static void sigmoid(double[] inputs, double[] outputs, int from, int to, double threshold) {
+        int step = SPECIES.length();
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, i);
+            DoubleVector sigmoid = one.div(x.neg().lanewise(VectorOperators.EXP).add(1.0));
+            sigmoid.blend(one, x.compare(VectorOperators.GT, threshold))
+                   .blend(zero, x.compare(VectorOperators.LT, -threshold))
+                   .intoArray(outputs, i);
+        }
+        for (; i < to; i++) {
+            double x = inputs[i];
+            outputs[i] = x > threshold ? 1 : x < -threshold ? 0 : 1 / (1 + Math.exp(-x));
+        }
+    }
+    
+    /**
+     * Computes the logistic sigmoid derivative of {@link MathUtilities#sigmoidDerivative}.
+     */
+    static void sigmoidDerivative(double[] inputs, double[] derivatives, int from, int to, double threshold) {
+        int step = SPECIES.length();
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, i);
+            DoubleVector sigmoid = one.div(x.neg().lanewise(VectorOperators.EXP).add(1.0));
+            sigmoid.mul(one.sub(sigmoid))
+                   .blend(zero, x.abs().compare(VectorOperators.GT, threshold))
+                   .intoArray(derivatives, i);
+        }
+        for (; i < to; i++) {
+            double x = inputs[i];
+            double sigmoid = 1 / (1 + Math.exp(-x));
+            derivatives[i] = Math.abs(x) > threshold ? 0 : sigmoid * (1 - sigmoid);
+        }
+    }
+    
+    /**
+     * Applies the hyperbolic tangent of {@link MathUtilities#tanh}.
+     */
+    static void tanh(double[] inputs, double[] outputs, int from, int to) {
+        int step = SPECIES.length();
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector.fromArray(SPECIES, inputs, i).lanewise(VectorOperators.TANH).intoArray(outputs, i);
+        }
+        for (; i < to; i++) {
+            outputs[i] = Math.tanh(inputs[i]);
+        }
+    }
+    
+    /**
+     * Computes the hyperbolic tangent derivative of {@link MathUtilities#tanhDerivative}.
+     */
+    static void tanhDerivative(double[] inputs, double[] derivatives, int from, int to) {
+        int step = SPECIES.length();
+        int i = from;
+        for (; i <= to - step; i += step) {
+            DoubleVector tanh = DoubleVector.fromArray(SPECIES, inputs, i).lanewise(VectorOperators.TANH);
+            tanh.mul(tanh).neg().add(1.0).intoArray(derivatives, i);
+        }
+        for (; i < to; i++) {
+            double tanh = Math.tanh(inputs[i]);
+            derivatives[i] = 1 - tanh * tanh;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks how an {@link AsyncPredictor} with a single worker and a queue of two handles overload and closing. The
+ * worker is held inside its first batch, so the queue fills deterministically behind it.
+ */
+class AsyncPredictorTest {
+    private static final int CAPACITY = 2;
+    private static final double[] INPUTS = {0.1, 0.2, 0.3, 0.4};
+    
+    @Test
+    void rejectFailsNewPredictionsWhenQueueIsFull() throws Exception {
+        HeldNetwork network = new HeldNetwork();
+        AsyncPredictor predictor = predictor(network, OverloadPolicy.REJECT);
+        CompletableFuture<double[]>[] futures = fillQueue(predictor, network);
+        CompletableFuture<double[]> overflow = predictor.predictAsync(INPUTS);
+        
+        assertRejected(overflow, "The prediction queue is full.");
+        PredictorMetrics metrics = predictor.getMetrics();
+        assertEquals(CAPACITY, metrics.queueDepth());
+        assertEquals(CAPACITY + 2, metrics.submitted());
+        assertEquals(1, metrics.rejected());
+        assertEquals(0, metrics.dropped());
+        
+        network.release();
+        for (CompletableFuture<double[]> future : futures) {
+            assertArrayEquals(network.expected, future.get(10, TimeUnit.SECONDS));
+        }
+        // Futures complete before the worker counts them; closing waits for the worker, so the counters are final
+        predictor.close();
+        metrics = predictor.getMetrics();
+        assertEquals(CAPACITY + 1, metrics.completed());
+        assertEquals(CAPACITY + 1, metrics.batches());
+        assertEquals(0, metrics.failed());
+        assertEquals(1, metrics.rejected());
+    }
+    
+    @Test
+    void dropOldestFailsOldestQueuedPredictionWhenQueueIsFull() throws Exception {
+        HeldNetwork network = new HeldNetwork();
+        AsyncPredictor predictor = predictor(network, OverloadPolicy.DROP_OLDEST);
+        CompletableFuture<double[]>[] futures = fillQueue(predictor, network);
+        CompletableFuture<double[]> newest = predictor.predictAsync(INPUTS);
+        
+        // The batch in progress is not in the queue, so the first queued prediction makes room
+        assertRejected(futures[1], "Dropped from a full prediction queue.");
+        PredictorMetrics metrics = predictor.getMetrics();
+        assertEquals(CAPACITY, metrics.queueDepth());
+        assertEquals(CAPACITY + 2, metrics.submitted());
+        assertEquals(0, metrics.rejected());
+        assertEquals(1, metrics.dropped());
+        
+        network.release();
+        assertArrayEquals(network.expected, futures[0].get(10, TimeUnit.SECONDS));
+        assertArrayEquals(network.expected, futures[2].get(10, TimeUnit.SECONDS));
+        assertArrayEquals(network.expected, newest.get(10, TimeUnit.SECONDS));
+        predictor.close();
+        metrics = predictor.getMetrics();
+        assertEquals(CAPACITY + 1, metrics.completed());
+        assertEquals(1, metrics.dropped());
+        assertEquals(0, metrics.rejected());
+    }
+    
+    @Test
+    void closeFailsEveryQueuedPrediction() throws Exception {
+        HeldNetwork network = new HeldNetwork();
+        AsyncPredictor predictor = predictor(network, OverloadPolicy.REJECT);
+        CompletableFuture<double[]>[] futures = fillQueue(predictor, network);
+        
+        // close() interrupts the held worker, which finishes the batch in progress before it stops
+        predictor.close();
+        assertArrayEquals(network.expected, futures[0].get(10, TimeUnit.SECONDS));
+        for (int i = 1; i < futures.length; i++) {
+            assertRejected(futures[i], "The predictor is closed.");
+        }
+        assertRejected(predictor.predictAsync(INPUTS), "The predictor is closed.");
+        PredictorMetrics metrics = predictor.getMetrics();
+        assertEquals(0, metrics.queueDepth());
+        assertEquals(1, metrics.completed());
+        assertEquals(CAPACITY + 1, metrics.rejected());
+    }
+    
+    private static AsyncPredictor predictor(NeuralNetwork network, OverloadPolicy policy) {
+        return new AsyncPredictor(network, 1, CAPACITY, policy, 1, Duration.ZERO);
+    }
+    
+    /**
+     * Submits one prediction that the worker takes and is held in, then enough to fill the queue behind it.
+     *
+     * @return The futures in submission order, the one being run first.
+     */
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<double[]>[] fillQueue(AsyncPredictor predictor, HeldNetwork network)
+            throws InterruptedException {
+        CompletableFuture<double[]>[] futures = new CompletableFuture[CAPACITY + 1];
+        futures[0] = predictor.predictAsync(INPUTS);
+        assertTrue(network.started.await(10, TimeUnit.SECONDS), "The worker did not start the first batch");
+        for (int i = 1; i < futures.length; i++) {
+            futures[i] = predictor.predictAsync(INPUTS);
+        }
+        for (CompletableFuture<double[]> future : futures) {
+            assertFalse(future.isDone(), "A prediction finished while the worker was held");
+        }
+        return futures;
+    }
+    
+    private static void assertRejected(CompletableFuture<double[]> future, String message) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(message, e.getCause().getMessage());
+    }
+    
+    /**
+     * A network whose first batch prediction blocks until it is released or its thread is interrupted.
+     */
+    private static final class HeldNetwork extends NeuralNetwork {
+        final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        final double[] expected;
+        
+        HeldNetwork() {
+            super(INPUTS.length, new int[]{3}, 2, new ReLU(), new CrossEntropyLoss());
+            expected = predict(INPUTS);
+        }
+        
+        void release() {
+            released.countDown();
+        }
+        
+        @Override
+        public double[][] predict(double[][] inputs) {
+            started.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                // Interrupted by close(), which lets the batch in progress finish
+            }
+            return super.predict(inputs);
+        }
+    }
+}
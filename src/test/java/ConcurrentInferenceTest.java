@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs predictions on one shared network from several threads at once and checks every result against the output
+ * computed on a single thread beforehand. Each thread uses its own inference workspace, so the results must be
+ * identical, not merely close.
+ */
+class ConcurrentInferenceTest {
+    private static final int SAMPLES = 200;
+    private static final int PASSES = 10;
+    private static final int THREADS = 8;
+    
+    @Test
+    void concurrentPredictionsMatchSingleThreadedOutput() throws Exception {
+        for (ParameterStorage storage : ParameterStorage.values()) {
+            try (NeuralNetwork network = new NeuralNetwork(64, new int[]{32}, 10, new ReLU(), new CrossEntropyLoss(),
+                                                           storage)) {
+                assertConcurrentPredictionsMatch(network);
+            }
+        }
+    }
+    
+    private static void assertConcurrentPredictionsMatch(NeuralNetwork network) throws Exception {
+        Random random = new Random(42);
+        double[][] inputs = new double[SAMPLES][64];
+        for (double[] input : inputs) {
+            for (int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble();
+            }
+        }
+        double[][] expected = new double[SAMPLES][];
+        double[][] expectedBatched = network.predict(inputs);
+        int[] expectedClasses = network.classify(inputs);
+        for (int i = 0; i < SAMPLES; i++) {
+            expected[i] = network.predict(inputs[i]);
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t * 31;
+                futures.add(executor.submit(() -> {
+                    double[] outputs = new double[10];
+                    for (int pass = 0; pass < PASSES; pass++) {
+                        for (int k = 0; k < SAMPLES; k++) {
+                            int i = (k + offset) % SAMPLES;
+                            network.predict(inputs[i], outputs);
+                            assertArrayEquals(expected[i], outputs, "predict(double[], double[]) of input " + i);
+                            assertArrayEquals(expectedBatched[i], network.predict(new double[][]{inputs[i]})[0],
+                                              "predict(double[][]) of input " + i);
+                            assertEquals(expectedClasses[i], network.classify(inputs[i]), "classify of input " + i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.DoubleUnaryOperator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the documented error bounds of {@code MathUtilities.fastExp}, {@link FastSigmoid} and {@link FastTanh} on a
+ * dense grid over the range where their results change and on extreme values, through both the scalar and the bulk
+ * methods, and the relative precision of {@link FastTanh} on a logarithmic grid approaching zero.
+ */
+class FastActivationAccuracyTest {
+    private static final double FAST_EXP_RELATIVE_ERROR = 3e-11;
+    private static final double ACTIVATION_ERROR = 2e-13;
+    private static final double TANH_ERROR = 2e-15;
+    private static final double ROUNDED_SIGMOID_ERROR = 2.1e-9;
+    private static final double[] INPUTS = inputs();
+    
+    @Test
+    void fastExpStaysWithinRelativeErrorOnClampedRange() {
+        for (int i = -40_000; i <= 40_000; i++) {
+            double x = i * 0.001;
+            double exact = Math.exp(x);
+            double error = Math.abs(MathUtilities.fastExp(x) - exact) / exact;
+            assertTrue(error < FAST_EXP_RELATIVE_ERROR, "fastExp(" + x + ") has relative error " + error);
+        }
+    }
+    
+    @Test
+    void fastSigmoidStaysWithinBoundOfExactSigmoid() {
+        FastSigmoid fast = new FastSigmoid();
+        assertWithin(fast, x -> 1 / (1 + Math.exp(-x)), x -> {
+            double sigmoid = 1 / (1 + Math.exp(-x));
+            return sigmoid * (1 - sigmoid);
+        }, ACTIVATION_ERROR);
+        Sigmoid rounded = new Sigmoid();
+        assertWithin(fast, rounded::activate, rounded::derive, ROUNDED_SIGMOID_ERROR);
+    }
+    
+    @Test
+    void fastTanhStaysWithinBoundOfTanh() {
+        Tanh exact = new Tanh();
+        assertWithin(new FastTanh(), exact::activate, exact::derive, TANH_ERROR);
+    }
+    
+    @Test
+    void fastTanhKeepsRelativePrecisionNearZero() {
+        FastTanh fast = new FastTanh();
+        double[] inputs = new double[2 * 3_051];
+        for (int i = 0; i < inputs.length / 2; i++) {
+            // Logarithmic grid from 1e-305 to 1 on both sides of zero
+            inputs[2 * i] = Math.pow(10, -305 + i * 0.1);
+            inputs[2 * i + 1] = -inputs[2 * i];
+        }
+        double[] outputs = new double[inputs.length];
+        fast.activate(inputs, outputs, 0, inputs.length);
+        for (int i = 0; i < inputs.length; i++) {
+            double x = inputs[i];
+            double exact = Math.tanh(x);
+            assertClose(1, fast.activate(x) / exact, TANH_ERROR, "relative activate", x);
+            assertClose(1, outputs[i] / exact, TANH_ERROR, "relative bulk activate", x);
+        }
+    }
+    
+    private static void assertWithin(ActivationFunction fast, DoubleUnaryOperator activation,
+                                     DoubleUnaryOperator derivative, double bound) {
+        double[] outputs = new double[INPUTS.length];
+        double[] derivatives = new double[INPUTS.length];
+        fast.activate(INPUTS, outputs, 0, INPUTS.length);
+        fast.deriveInto(INPUTS, derivatives, 0, INPUTS.length);
+        for (int i = 0; i < INPUTS.length; i++) {
+            double x = INPUTS[i];
+            double expected = activation.applyAsDouble(x);
+            double expectedDerivative = derivative.applyAsDouble(x);
+            assertClose(expected, fast.activate(x), bound, "activate", x);
+            assertClose(expected, outputs[i], bound, "bulk activate", x);
+            assertClose(expectedDerivative, fast.derive(x), bound, "derive", x);
+            assertClose(expectedDerivative, derivatives[i], bound, "bulk derive", x);
+        }
+    }
+    
+    private static void assertClose(double expected, double actual, double bound, String method, double x) {
+        double error = Math.abs(actual - expected);
+        assertTrue(error <= bound, method + "(" + x + ") is off by " + error);
+    }
+    
+    /**
+     * Returns a grid with a step of 0.001 over [-50, 50], past the clamping of fastExp on both sides, followed by
+     * the extremes of the double range.
+     */
+    private static double[] inputs() {
+        int steps = 100_000;
+        double[] extremes = {-Double.MAX_VALUE, -1e300, -1e6, -Double.MIN_VALUE, 0, Double.MIN_VALUE, 1e6, 1e300,
+                             Double.MAX_VALUE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] inputs = new double[steps + 1 + extremes.length];
+        for (int i = 0; i <= steps; i++) {
+            inputs[i] = -50 + i * 0.001;
+        }
+        System.arraycopy(extremes, 0, inputs, steps + 1, extremes.length);
+        return inputs;
+    }
+}
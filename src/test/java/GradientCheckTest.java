@@ -0,0 +1,211 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the gradients of every training path against central finite differences of the cross-entropy loss, with
+ * curved hidden activations so that taking a derivative at the wrong weighted sum shows. Each path takes one plain
+ * gradient descent step with a tiny learning rate, and the gradient is recovered from how far the parameters moved.
+ */
+class GradientCheckTest {
+    private static final int INPUT_SIZE = 5;
+    private static final int[] HIDDEN_SIZES = {4, 3};
+    private static final int OUTPUT_SIZE = 3;
+    private static final int SAMPLES = 6;
+    private static final double LEARNING_RATE = 1e-6;
+    private static final double STEP = 1e-6;
+    private static final double TOLERANCE = 1e-5;
+    
+    @Test
+    void singleSampleTrainingMatchesFiniteDifferences() {
+        check((network, dataset) -> network.train(dataset, 1, LEARNING_RATE), 1);
+    }
+    
+    @Test
+    void lockFreeTrainingMatchesFiniteDifferences() {
+        check((network, dataset) -> network.trainHogwild(dataset, 1, LEARNING_RATE, 1), 1);
+    }
+    
+    @Test
+    void batchTrainingMatchesFiniteDifferences() {
+        check((network, dataset) -> network.train(dataset, 1, LEARNING_RATE, SAMPLES, 1), SAMPLES);
+    }
+    
+    @Test
+    void layerBatchBackPropagationMatchesFiniteDifferences() {
+        for (ActivationFunction activation : List.of(new Tanh(), new Sigmoid())) {
+            Random random = new Random(7);
+            Layer layer = new Layer(4, INPUT_SIZE, activation, randomArray(4 * INPUT_SIZE, random),
+                                    randomArray(4, random));
+            double[][] inputs = new double[SAMPLES][];
+            double[][] errors = new double[SAMPLES][];
+            for (int n = 0; n < SAMPLES; n++) {
+                inputs[n] = randomArray(INPUT_SIZE, random);
+                errors[n] = randomArray(4, random);
+            }
+            // The loss is the sum over the batch of errors . outputs, so the errors are its output gradients
+            double[] before = layer.getWeights();
+            double[] expected = new double[before.length];
+            for (int k = 0; k < before.length; k++) {
+                double[] weights = before.clone();
+                weights[k] = before[k] + STEP;
+                layer.setWeights(weights);
+                double plus = linearLoss(layer, inputs, errors);
+                weights[k] = before[k] - STEP;
+                layer.setWeights(weights);
+                double minus = linearLoss(layer, inputs, errors);
+                expected[k] = (plus - minus) / (2 * STEP);
+            }
+            layer.setWeights(before);
+            layer.backPropagate(errors, inputs, LEARNING_RATE);
+            double[] after = layer.getWeights();
+            for (int k = 0; k < before.length; k++) {
+                double actual = (before[k] - after[k]) * SAMPLES / LEARNING_RATE;
+                assertEquals(expected[k], actual, TOLERANCE * Math.max(1, Math.abs(expected[k])),
+                             activation.getClass().getSimpleName() + " weight " + k);
+            }
+        }
+    }
+    
+    private interface TrainingStep {
+        void run(NeuralNetwork network, Dataset dataset);
+    }
+    
+    /**
+     * Runs one step of a training path on heap and off-heap networks with Tanh and Sigmoid hidden layers and compares
+     * the recovered gradient of every weight and bias with finite differences of the summed loss.
+     *
+     * @param rows The number of examples the path trains on, which the step is averaged over.
+     */
+    private static void check(TrainingStep step, int rows) {
+        for (ActivationFunction activation : List.of(new Tanh(), new Sigmoid())) {
+            for (ParameterStorage storage : ParameterStorage.values()) {
+                Random random = new Random(11);
+                Dataset dataset = dataset(rows, random);
+                try (NeuralNetwork network = network(activation, storage, random)) {
+                    String label = activation.getClass().getSimpleName() + " " + storage;
+                    double[][] expectedWeights = new double[network.getLayers().length][];
+                    double[][] expectedBiases = new double[network.getLayers().length][];
+                    double[][] weightsBefore = new double[network.getLayers().length][];
+                    double[][] biasesBefore = new double[network.getLayers().length][];
+                    for (int i = 0; i < network.getLayers().length; i++) {
+                        Layer layer = network.getLayers()[i];
+                        weightsBefore[i] = layer.getWeights();
+                        biasesBefore[i] = layer.getBiases().clone();
+                        expectedWeights[i] = weightGradient(network, layer, dataset);
+                        expectedBiases[i] = biasGradient(network, layer, dataset);
+                    }
+                    
+                    step.run(network, dataset);
+                    
+                    for (int i = 0; i < network.getLayers().length; i++) {
+                        Layer layer = network.getLayers()[i];
+                        assertRecovered(expectedWeights[i], weightsBefore[i], layer.getWeights(), rows,
+                                        label + " layer " + i + " weight ");
+                        assertRecovered(expectedBiases[i], biasesBefore[i], layer.getBiases(), rows,
+                                        label + " layer " + i + " bias ");
+                    }
+                }
+            }
+        }
+    }
+    
+    private static void assertRecovered(double[] expected, double[] before, double[] after, int rows, String label) {
+        for (int k = 0; k < expected.length; k++) {
+            double actual = (before[k] - after[k]) * rows / LEARNING_RATE;
+            assertEquals(expected[k], actual, TOLERANCE * Math.max(1, Math.abs(expected[k])), label + k);
+        }
+    }
+    
+    private static double[] weightGradient(NeuralNetwork network, Layer layer, Dataset dataset) {
+        double[] weights = layer.getWeights();
+        double[] gradient = new double[weights.length];
+        for (int k = 0; k < weights.length; k++) {
+            double original = weights[k];
+            weights[k] = original + STEP;
+            layer.setWeights(weights);
+            double plus = loss(network, dataset);
+            weights[k] = original - STEP;
+            layer.setWeights(weights);
+            double minus = loss(network, dataset);
+            weights[k] = original;
+            layer.setWeights(weights);
+            gradient[k] = (plus - minus) / (2 * STEP);
+        }
+        return gradient;
+    }
+    
+    private static double[] biasGradient(NeuralNetwork network, Layer layer, Dataset dataset) {
+        double[] biases = layer.getBiases();
+        double[] gradient = new double[biases.length];
+        for (int k = 0; k < biases.length; k++) {
+            double original = biases[k];
+            biases[k] = original + STEP;
+            double plus = loss(network, dataset);
+            biases[k] = original - STEP;
+            double minus = loss(network, dataset);
+            biases[k] = original;
+            gradient[k] = (plus - minus) / (2 * STEP);
+        }
+        return gradient;
+    }
+    
+    /**
+     * Returns the cross-entropy of the softmax outputs summed over the dataset.
+     */
+    private static double loss(NeuralNetwork network, Dataset dataset) {
+        double[] data = dataset.data();
+        double[] inputs = new double[INPUT_SIZE];
+        double[] outputs = new double[OUTPUT_SIZE];
+        double total = 0;
+        for (int n = 0; n < dataset.size(); n++) {
+            System.arraycopy(data, dataset.inputOffset(n), inputs, 0, INPUT_SIZE);
+            network.predict(inputs, outputs);
+            for (int k = 0; k < OUTPUT_SIZE; k++) {
+                total -= data[dataset.outputOffset(n) + k] * Math.log(outputs[k]);
+            }
+        }
+        return total;
+    }
+    
+    private static double linearLoss(Layer layer, double[][] inputs, double[][] errors) {
+        double[][] outputs = layer.feedForward(inputs);
+        double total = 0;
+        for (int n = 0; n < inputs.length; n++) {
+            total += MathUtilities.dotProduct(errors[n], 0, outputs[n], 0, outputs[n].length);
+        }
+        return total;
+    }
+    
+    private static NeuralNetwork network(ActivationFunction activation, ParameterStorage storage, Random random) {
+        NeuralNetwork network = new NeuralNetwork(INPUT_SIZE, HIDDEN_SIZES, OUTPUT_SIZE, activation,
+                                                  new CrossEntropyLoss(), storage);
+        network.getTrainingListeners().forEach(network::removeTrainingListener);
+        for (Layer layer : network.getLayers()) {
+            layer.setWeights(randomArray(layer.getLayerSize() * layer.getInputSize(), random));
+            System.arraycopy(randomArray(layer.getLayerSize(), random), 0, layer.getBiases(), 0,
+                             layer.getLayerSize());
+        }
+        return network;
+    }
+    
+    private static Dataset dataset(int rows, Random random) {
+        Dataset dataset = new Dataset(rows, INPUT_SIZE, OUTPUT_SIZE);
+        for (int n = 0; n < rows; n++) {
+            double[] expected = new double[OUTPUT_SIZE];
+            expected[random.nextInt(OUTPUT_SIZE)] = 1;
+            dataset.set(n, randomArray(INPUT_SIZE, random), expected);
+        }
+        return dataset;
+    }
+    
+    private static double[] randomArray(int length, Random random) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextGaussian();
+        }
+        return array;
+    }
+}
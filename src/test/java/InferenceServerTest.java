@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the inference server answers well-formed requests and refuses bodies longer than its cap with 413
+ * before parsing them.
+ */
+class InferenceServerTest {
+    
+    @Test
+    void oversizedBodyIsRefused() throws IOException, InterruptedException {
+        NeuralNetwork network = new NeuralNetwork(3, new int[]{4}, 2, new ReLU(), new CrossEntropyLoss());
+        try (InferenceServer server = new InferenceServer(network, new InetSocketAddress("localhost", 0), 8,
+                                                          Duration.ofMillis(1), 16, OverloadPolicy.REJECT);
+             HttpClient client = HttpClient.newHttpClient()) {
+            server.start();
+            URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/predict");
+            
+            assertEquals(200, post(client, uri, "[0.5, 1, -2]").statusCode());
+            // Three inputs allow 3 * 32 + 1024 bytes
+            assertEquals(413, post(client, uri, "[0.5, 1, -2" + " ".repeat(4_096) + "]").statusCode());
+        }
+    }
+    
+    private static HttpResponse<String> post(HttpClient client, URI uri, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
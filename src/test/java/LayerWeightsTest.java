@@ -0,0 +1,41 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.foreign.Arena;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that heap and off-heap layers expose their weights the same way: {@link Layer#getWeights()} returns a copy
+ * and {@link Layer#setWeights(double[])} replaces the matrix.
+ */
+class LayerWeightsTest {
+    
+    @Test
+    void heapLayerWeightsAreCopied() {
+        assertCopySemantics(new Layer(3, 4, new ReLU()));
+    }
+    
+    @Test
+    void offHeapLayerWeightsAreCopied() {
+        try (Arena arena = Arena.ofConfined()) {
+            assertCopySemantics(new Layer(3, 4, new ReLU(), arena));
+        }
+    }
+    
+    private static void assertCopySemantics(Layer layer) {
+        double[] weights = layer.getWeights();
+        double original = weights[5];
+        weights[5] = original + 1;
+        assertEquals(original, layer.getWeights()[5], "A write into the returned array reached the layer");
+        
+        double[] replacement = new double[12];
+        for (int i = 0; i < replacement.length; i++) {
+            replacement[i] = i * 0.25;
+        }
+        layer.setWeights(replacement);
+        assertArrayEquals(replacement, layer.getWeights());
+        assertEquals(1.25, layer.getNeurons()[1].getWeight(1));
+        assertThrows(IllegalArgumentException.class, () -> layer.setWeights(new double[11]));
+    }
+}
@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the blocked matrix products of {@link MathUtilities} against a naive triple loop in all three operand
+ * layouts. The shapes leave partial 4x4 tiles on both edges, cross depth slices of the blocked kernel, and one of
+ * them is large enough to split its rows across the common fork-join pool.
+ */
+class MatrixMultiplyTest {
+    private static final int[][] SHAPES = {
+            {1, 1, 1},
+            {3, 5, 7},
+            {9, 6, 13},
+            {13, 11, 257},
+            {37, 23, 519},
+            {131, 67, 301}
+    };
+    
+    @Test
+    void plainProductMatchesNaiveProduct() {
+        Random random = new Random(1);
+        for (int[] shape : SHAPES) {
+            int rows = shape[0], columns = shape[1], depth = shape[2];
+            double[] a = randomArray(rows * depth, random);
+            double[] b = randomArray(depth * columns, random);
+            double[] result = garbage(rows * columns);
+            MathUtilities.matrixMultiply(a, b, result, rows, columns, depth);
+            assertProduct(result, shape, (i, j, p) -> a[i * depth + p] * b[p * columns + j]);
+        }
+    }
+    
+    @Test
+    void transposedBProductMatchesNaiveProduct() {
+        Random random = new Random(2);
+        for (int[] shape : SHAPES) {
+            int rows = shape[0], columns = shape[1], depth = shape[2];
+            double[] a = randomArray(rows * depth, random);
+            double[] b = randomArray(columns * depth, random);
+            double[] result = garbage(rows * columns);
+            MathUtilities.matrixMultiplyTransposedB(a, b, result, rows, columns, depth);
+            assertProduct(result, shape, (i, j, p) -> a[i * depth + p] * b[j * depth + p]);
+        }
+    }
+    
+    @Test
+    void transposedAProductMatchesNaiveProduct() {
+        Random random = new Random(3);
+        for (int[] shape : SHAPES) {
+            int rows = shape[0], columns = shape[1], depth = shape[2];
+            double[] a = randomArray(depth * rows, random);
+            double[] b = randomArray(depth * columns, random);
+            double[] result = garbage(rows * columns);
+            MathUtilities.matrixMultiplyTransposedA(a, b, result, rows, columns, depth);
+            assertProduct(result, shape, (i, j, p) -> a[p * rows + i] * b[p * columns + j]);
+        }
+    }
+    
+    private interface Term {
+        double at(int row, int column, int depth);
+    }
+    
+    /**
+     * Compares every element of the result with the naive sum of its terms, allowing a rounding error relative to
+     * the sum of the magnitudes of the terms since the blocked kernel adds them in a different order.
+     */
+    private static void assertProduct(double[] result, int[] shape, Term term) {
+        int rows = shape[0], columns = shape[1], depth = shape[2];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                double expected = 0;
+                double magnitude = 0;
+                for (int p = 0; p < depth; p++) {
+                    double value = term.at(i, j, p);
+                    expected += value;
+                    magnitude += Math.abs(value);
+                }
+                assertEquals(expected, result[i * columns + j], 1e-14 * depth * magnitude,
+                             Arrays.toString(shape) + " element (" + i + ", " + j + ")");
+            }
+        }
+    }
+    
+    /**
+     * Returns a result buffer filled with NaN, so that an element the product does not overwrite fails the check.
+     */
+    private static double[] garbage(int length) {
+        double[] array = new double[length];
+        Arrays.fill(array, Double.NaN);
+        return array;
+    }
+    
+    private static double[] randomArray(int length, Random random) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextGaussian();
+        }
+        return array;
+    }
+}
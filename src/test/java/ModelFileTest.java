@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that model files round-trip and that corrupt headers are rejected with an {@link IOException} before any
+ * buffer sized from them is allocated.
+ */
+class ModelFileTest {
+    // Byte offsets of the input size, layer count and first layer size in the header
+    private static final int INPUT_SIZE_OFFSET = 16;
+    private static final int LAYER_COUNT_OFFSET = 20;
+    private static final int FIRST_LAYER_SIZE_OFFSET = 24;
+    
+    @Test
+    void savedNetworkLoadsWithSamePredictions() throws IOException {
+        Path path = Files.createTempFile("model", ".bin");
+        try {
+            NeuralNetwork original = new NeuralNetwork(8, new int[]{4}, 3, new ReLU(), new CrossEntropyLoss());
+            original.save(path.toString());
+            double[] inputs = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8};
+            assertArrayEquals(original.predict(inputs), NeuralNetwork.load(path.toString()).predict(inputs));
+        } finally {
+            Files.delete(path);
+        }
+    }
+    
+    @Test
+    void layerCountBeyondFileSizeIsRejected() throws IOException {
+        assertCorrupt(LAYER_COUNT_OFFSET, Integer.MAX_VALUE);
+        assertCorrupt(LAYER_COUNT_OFFSET, 1 << 20);
+    }
+    
+    @Test
+    void overflowingTopologyIsRejected() throws IOException {
+        assertCorrupt(INPUT_SIZE_OFFSET, Integer.MAX_VALUE);
+        assertCorrupt(FIRST_LAYER_SIZE_OFFSET, Integer.MAX_VALUE);
+    }
+    
+    @Test
+    void layerBeyondArrayLimitIsRejected() throws IOException {
+        // 2^28 neurons of 8 inputs are 2^31 weights; the file is grown to match the header so only the limit fails
+        int layerSize = 1 << 28;
+        long fileBytes = 32 + Double.BYTES * ((long) layerSize * (8 + 1) + 3 * (layerSize + 1L));
+        assertCorrupt(FIRST_LAYER_SIZE_OFFSET, layerSize, fileBytes);
+    }
+    
+    private static void assertCorrupt(int offset, int value) throws IOException {
+        assertCorrupt(offset, value, -1);
+    }
+    
+    /**
+     * Overwrites one header value of a saved network and checks that both loaders reject the file.
+     *
+     * @param fileBytes The size to give the file, which is sparse beyond the saved parameters, or -1 to keep it.
+     */
+    private static void assertCorrupt(int offset, int value, long fileBytes) throws IOException {
+        Path path = savedNetwork();
+        try {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+                channel.write(buffer.flip(), offset);
+                if (fileBytes >= 0) {
+                    channel.write(ByteBuffer.allocate(1), fileBytes - 1);
+                }
+            }
+            assertThrows(IOException.class, () -> NeuralNetwork.load(path.toString()));
+            assertThrows(IOException.class, () -> MappedNeuralNetwork.load(path.toString()).close());
+        } finally {
+            Files.delete(path);
+        }
+    }
+    
+    private static Path savedNetwork() throws IOException {
+        Path path = Files.createTempFile("model", ".bin");
+        new NeuralNetwork(8, new int[]{4}, 3, new ReLU(), new CrossEntropyLoss()).save(path.toString());
+        return path;
+    }
+}
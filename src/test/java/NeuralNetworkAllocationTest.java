@@ -0,0 +1,52 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that single-input prediction into a caller-supplied array allocates nothing once the calling thread's
+ * workspace exists and the JIT has compiled the inference path.
+ */
+class NeuralNetworkAllocationTest {
+    private static final int WARM_UP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 10_000;
+    
+    @Test
+    void predictIntoArrayDoesNotAllocateOnHeapLayers() {
+        assertNoAllocation(ParameterStorage.HEAP);
+    }
+    
+    @Test
+    void predictIntoArrayDoesNotAllocateOnOffHeapLayers() {
+        assertNoAllocation(ParameterStorage.OFF_HEAP);
+    }
+    
+    private static void assertNoAllocation(ParameterStorage storage) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                   "The JVM does not measure per-thread allocation.");
+        try (NeuralNetwork network = new NeuralNetwork(16, new int[]{32, 32}, 4, new ReLU(), new CrossEntropyLoss(),
+                                                       storage)) {
+            double[] inputs = new double[16];
+            Random random = new Random(1);
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = random.nextGaussian();
+            }
+            double[] outputs = new double[4];
+            for (int i = 0; i < WARM_UP_CALLS; i++) {
+                network.predict(inputs, outputs);
+            }
+            
+            long threadId = Thread.currentThread().threadId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                network.predict(inputs, outputs);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            assertEquals(0, allocated, MEASURED_CALLS + " calls to predict(double[], double[]) allocated bytes");
+        }
+    }
+}
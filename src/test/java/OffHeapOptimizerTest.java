@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every optimizer takes the same steps on an off-heap network, whose weight state lives in native
+ * memory, as on a heap network starting from the same weights.
+ */
+class OffHeapOptimizerTest {
+    private static final int INPUT_SIZE = 12;
+    private static final int HIDDEN_SIZE = 9;
+    private static final int OUTPUT_SIZE = 3;
+    private static final int SAMPLES = 64;
+    
+    @Test
+    void offHeapStepsMatchHeapSteps() {
+        for (Optimizer optimizer : List.of(new SGD(), new Momentum(), new Momentum(0.9, true), new RMSProp(),
+                                           new Adam(), new AdamW())) {
+            NeuralNetwork heap = network(ParameterStorage.HEAP, optimizer);
+            NeuralNetwork offHeap = network(ParameterStorage.OFF_HEAP, optimizer);
+            try {
+                // One batch per epoch, so the shuffled order only changes the summation order of the gradients
+                heap.train(dataset(new Random(3)), 3, 0.01, SAMPLES, 1);
+                offHeap.train(dataset(new Random(3)), 3, 0.01, SAMPLES, 1);
+                
+                for (int i = 0; i < heap.getLayers().length; i++) {
+                    double[] expected = heap.getLayers()[i].getWeights();
+                    double[] actual = offHeap.getLayers()[i].getWeights();
+                    for (int j = 0; j < expected.length; j++) {
+                        assertEquals(expected[j], actual[j], 1e-12,
+                                     optimizer.getClass().getSimpleName() + " weight " + j + " of layer " + i);
+                    }
+                }
+            } finally {
+                offHeap.close();
+            }
+        }
+    }
+    
+    private static NeuralNetwork network(ParameterStorage storage, Optimizer optimizer) {
+        NeuralNetwork network = new NeuralNetwork(INPUT_SIZE, new int[]{HIDDEN_SIZE}, OUTPUT_SIZE, new ReLU(),
+                                                  new CrossEntropyLoss(), storage);
+        network.getTrainingListeners().forEach(network::removeTrainingListener);
+        network.setOptimizer(optimizer);
+        Random random = new Random(1);
+        for (Layer layer : network.getLayers()) {
+            double[] weights = new double[layer.getLayerSize() * layer.getInputSize()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = random.nextGaussian() * 0.2;
+            }
+            layer.setWeights(weights);
+            Arrays.fill(layer.getBiases(), 0.1);
+        }
+        return network;
+    }
+    
+    private static Dataset dataset(Random random) {
+        Dataset dataset = new Dataset(SAMPLES, INPUT_SIZE, OUTPUT_SIZE);
+        for (int i = 0; i < SAMPLES; i++) {
+            double[] inputs = new double[INPUT_SIZE];
+            for (int j = 0; j < INPUT_SIZE; j++) {
+                inputs[j] = random.nextDouble() - 0.5;
+            }
+            double[] expected = new double[OUTPUT_SIZE];
+            expected[random.nextInt(OUTPUT_SIZE)] = 1;
+            dataset.set(i, inputs, expected);
+        }
+        return dataset;
+    }
+}
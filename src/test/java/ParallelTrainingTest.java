@@ -0,0 +1,106 @@
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the multi-threaded training paths against their single-threaded counterparts: data-parallel workers must
+ * take the same step as one worker up to the rounding of the gradient reduction, and lock-free Hogwild! training
+ * must still learn a learnable task.
+ */
+class ParallelTrainingTest {
+    private static final int INPUT_SIZE = 20;
+    private static final int HIDDEN_SIZE = 16;
+    private static final int OUTPUT_SIZE = 4;
+    private static final int SAMPLES = 1_024;
+    
+    @Test
+    void dataParallelWorkersMatchSingleWorker() {
+        Random random = new Random(1);
+        double[][] weights = {randomArray(HIDDEN_SIZE * INPUT_SIZE, random),
+                              randomArray(OUTPUT_SIZE * HIDDEN_SIZE, random)};
+        double[][] biases = {randomArray(HIDDEN_SIZE, random), randomArray(OUTPUT_SIZE, random)};
+        NeuralNetwork reference = network(weights, biases);
+        NeuralNetwork parallel = network(weights, biases);
+        reference.getTrainingListeners().forEach(reference::removeTrainingListener);
+        parallel.getTrainingListeners().forEach(parallel::removeTrainingListener);
+        Dataset dataset = teacherDataset(random);
+        
+        reference.train(dataset, 1, 0.1, SAMPLES, 1);
+        parallel.train(dataset, 1, 0.1, SAMPLES, 4);
+        
+        for (int i = 0; i < weights.length; i++) {
+            double[] expected = reference.getLayers()[i].getWeights();
+            double[] actual = parallel.getLayers()[i].getWeights();
+            for (int j = 0; j < expected.length; j++) {
+                assertEquals(expected[j], actual[j], 1e-12, "weight " + j + " of layer " + i);
+            }
+        }
+    }
+    
+    @Test
+    void hogwildTrainingLearnsTeacherTask() {
+        Random random = new Random(2);
+        double[][] weights = {randomArray(HIDDEN_SIZE * INPUT_SIZE, random),
+                              randomArray(OUTPUT_SIZE * HIDDEN_SIZE, random)};
+        double[][] biases = {randomArray(HIDDEN_SIZE, random), randomArray(OUTPUT_SIZE, random)};
+        NeuralNetwork network = network(weights, biases);
+        network.getTrainingListeners().forEach(network::removeTrainingListener);
+        // Seeded weights and shuffles leave the interleaving of the threads as the only source of variation
+        network.setRandom(new Random(4));
+        Dataset dataset = teacherDataset(random);
+        
+        network.trainHogwild(dataset, 10, 0.01, 4);
+        
+        int correct = 0;
+        for (int i = 0; i < dataset.size(); i++) {
+            double[] inputs = dataset.inputs(i).toArray(JAVA_DOUBLE);
+            double[] expected = dataset.expectedOutputs(i).toArray(JAVA_DOUBLE);
+            if (network.classify(inputs) == MathUtilities.argMax(expected)) {
+                correct++;
+            }
+        }
+        double accuracy = (double) correct / dataset.size();
+        assertTrue(accuracy > 0.8, "Hogwild accuracy " + accuracy);
+    }
+    
+    private static NeuralNetwork network(double[][] weights, double[][] biases) {
+        Layer[] layers = {
+            new Layer(HIDDEN_SIZE, INPUT_SIZE, new ReLU(), weights[0].clone(), biases[0].clone()),
+            new Layer(OUTPUT_SIZE, HIDDEN_SIZE, new Linear(), weights[1].clone(), biases[1].clone())
+        };
+        return new NeuralNetwork(layers, new ReLU(), new CrossEntropyLoss());
+    }
+    
+    /**
+     * Labels random inputs with the class a fixed random linear teacher scores highest, so the task is learnable.
+     */
+    private static Dataset teacherDataset(Random random) {
+        double[] teacher = randomArray(OUTPUT_SIZE * INPUT_SIZE, random);
+        Dataset dataset = new Dataset(SAMPLES, INPUT_SIZE, OUTPUT_SIZE);
+        double[] scores = new double[OUTPUT_SIZE];
+        for (int i = 0; i < SAMPLES; i++) {
+            double[] inputs = new double[INPUT_SIZE];
+            for (int j = 0; j < INPUT_SIZE; j++) {
+                inputs[j] = random.nextDouble() - 0.5;
+            }
+            for (int k = 0; k < OUTPUT_SIZE; k++) {
+                scores[k] = MathUtilities.dotProduct(teacher, k * INPUT_SIZE, inputs, 0, INPUT_SIZE);
+            }
+            double[] expected = new double[OUTPUT_SIZE];
+            expected[MathUtilities.argMax(scores)] = 1;
+            dataset.set(i, inputs, expected);
+        }
+        return dataset;
+    }
+    
+    private static double[] randomArray(int length, Random random) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextGaussian() * 0.1;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,270 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs streams through a {@link PredictionProcessor} between a publisher that emits only what it is asked for and a
+ * subscriber that requests a fixed number of predictions at a time, checking the order of the predictions, the
+ * demand passed upstream, the latency flush and how failures terminate the stream.
+ */
+class PredictionProcessorTest {
+    private static final int INPUT_SIZE = 4;
+    private static final int MAX_BATCH_SIZE = 16;
+    private static final Duration NO_FLUSH = Duration.ofSeconds(30);
+    
+    @Test
+    void predictionsArriveInOrderForEveryDemand() throws InterruptedException {
+        NeuralNetwork network = network();
+        List<double[]> inputs = inputs(100);
+        for (long demand : new long[]{1, 3, 64, Long.MAX_VALUE}) {
+            ListPublisher publisher = new ListPublisher(inputs, null);
+            RecordingSubscriber subscriber = new RecordingSubscriber(demand, inputs.size());
+            PredictionProcessor processor = new PredictionProcessor(network, MAX_BATCH_SIZE, NO_FLUSH);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+            
+            subscriber.awaitTermination();
+            String label = "demand " + demand;
+            assertTrue(subscriber.completed, label + " did not complete");
+            assertEquals(null, subscriber.error, label);
+            assertFalse(subscriber.overrun, label + " received more predictions than requested");
+            assertTrue(publisher.largestRequest <= MAX_BATCH_SIZE, label + " requested more than a batch upstream");
+            assertPredictions(network, inputs, subscriber.outputs, label);
+        }
+    }
+    
+    @Test
+    void partialBatchIsRunAfterMaxLatency() throws InterruptedException {
+        NeuralNetwork network = network();
+        List<double[]> inputs = inputs(5);
+        Duration maxLatency = Duration.ofMillis(50);
+        // The publisher neither completes nor fills the batch, so only the latency flush emits the predictions
+        ListPublisher publisher = new ListPublisher(inputs, null);
+        publisher.completes = false;
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE, inputs.size());
+        PredictionProcessor processor = new PredictionProcessor(network, MAX_BATCH_SIZE, maxLatency);
+        processor.subscribe(subscriber);
+        long startTime = System.nanoTime();
+        publisher.subscribe(processor);
+        
+        assertTrue(subscriber.received.await(10, TimeUnit.SECONDS), "The partial batch was not run");
+        assertTrue(System.nanoTime() - startTime >= maxLatency.toNanos(), "The partial batch was run too early");
+        assertFalse(subscriber.completed, "The stream completed while upstream was still open");
+        assertPredictions(network, inputs, subscriber.outputs, "latency flush");
+        
+        subscriber.subscription.cancel();
+        assertTrue(publisher.cancelled.await(10, TimeUnit.SECONDS), "Cancellation did not reach upstream");
+    }
+    
+    @Test
+    void upstreamErrorFollowsBufferedPredictions() throws InterruptedException {
+        NeuralNetwork network = network();
+        List<double[]> inputs = inputs(2);
+        IllegalStateException failure = new IllegalStateException("Upstream failed.");
+        RecordingSubscriber subscriber = run(network, new ListPublisher(inputs, failure));
+        
+        assertEquals(failure, subscriber.error);
+        assertFalse(subscriber.completed, "The stream completed despite the upstream error");
+        assertPredictions(network, inputs, subscriber.outputs, "upstream error");
+    }
+    
+    @Test
+    void failingBatchFailsStreamAndCancelsUpstream() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("Prediction failed.");
+        NeuralNetwork network = new NeuralNetwork(INPUT_SIZE, new int[]{5}, 3, new ReLU(), new CrossEntropyLoss()) {
+            @Override
+            public double[][] predict(double[][] inputs) {
+                throw failure;
+            }
+        };
+        ListPublisher publisher = new ListPublisher(inputs(3), null);
+        RecordingSubscriber subscriber = run(network, publisher);
+        
+        assertEquals(failure, subscriber.error);
+        assertTrue(subscriber.outputs.isEmpty(), "Predictions were emitted from a failed batch");
+        assertEquals(0, publisher.cancelled.getCount(), "Upstream was not cancelled");
+    }
+    
+    @Test
+    void wrongSizeInputFailsStreamAndCancelsUpstream() throws InterruptedException {
+        NeuralNetwork network = network();
+        List<double[]> inputs = inputs(1);
+        inputs.add(new double[INPUT_SIZE - 1]);
+        inputs.addAll(inputs(2));
+        ListPublisher publisher = new ListPublisher(inputs, null);
+        RecordingSubscriber subscriber = run(network, publisher);
+        
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertTrue(subscriber.outputs.isEmpty(), "The input buffered before the wrong-size one was emitted");
+        assertEquals(0, publisher.cancelled.getCount(), "Upstream was not cancelled");
+    }
+    
+    @Test
+    void secondSubscriberIsRefused() throws InterruptedException {
+        NeuralNetwork network = network();
+        List<double[]> inputs = inputs(3);
+        PredictionProcessor processor = new PredictionProcessor(network, MAX_BATCH_SIZE, NO_FLUSH);
+        RecordingSubscriber first = new RecordingSubscriber(Long.MAX_VALUE, inputs.size());
+        RecordingSubscriber second = new RecordingSubscriber(Long.MAX_VALUE, 0);
+        processor.subscribe(first);
+        processor.subscribe(second);
+        new ListPublisher(inputs, null).subscribe(processor);
+        
+        second.awaitTermination();
+        assertInstanceOf(IllegalStateException.class, second.error);
+        assertTrue(second.outputs.isEmpty(), "The refused subscriber received predictions");
+        first.awaitTermination();
+        assertTrue(first.completed, "The first subscriber did not complete");
+        assertPredictions(network, inputs, first.outputs, "first subscriber");
+    }
+    
+    /**
+     * Runs a stream with unbounded demand and batches that are only cut short by the end of the stream.
+     */
+    private static RecordingSubscriber run(NeuralNetwork network, ListPublisher publisher)
+            throws InterruptedException {
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE, 0);
+        PredictionProcessor processor = new PredictionProcessor(network, MAX_BATCH_SIZE, NO_FLUSH);
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+        subscriber.awaitTermination();
+        return subscriber;
+    }
+    
+    private static void assertPredictions(NeuralNetwork network, List<double[]> inputs, List<double[]> outputs,
+                                          String label) {
+        assertEquals(inputs.size(), outputs.size(), label + " prediction count");
+        for (int i = 0; i < inputs.size(); i++) {
+            assertArrayEquals(network.predict(new double[][]{inputs.get(i)})[0], outputs.get(i),
+                              label + " prediction " + i);
+        }
+    }
+    
+    private static NeuralNetwork network() {
+        return new NeuralNetwork(INPUT_SIZE, new int[]{5}, 3, new ReLU(), new CrossEntropyLoss());
+    }
+    
+    private static List<double[]> inputs(int count) {
+        Random random = new Random(count);
+        List<double[]> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double[] input = new double[INPUT_SIZE];
+            for (int j = 0; j < INPUT_SIZE; j++) {
+                input[j] = random.nextDouble();
+            }
+            inputs.add(input);
+        }
+        return inputs;
+    }
+    
+    /**
+     * A publisher that emits the next items of a list only when they are requested, then completes or fails.
+     */
+    private static final class ListPublisher implements Flow.Publisher<double[]> {
+        private final List<double[]> items;
+        private final Throwable failure;
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        volatile boolean completes = true;
+        volatile long largestRequest;
+        private int position;
+        private boolean terminated;
+        
+        ListPublisher(List<double[]> items, Throwable failure) {
+            this.items = items;
+            this.failure = failure;
+        }
+        
+        @Override
+        public void subscribe(Flow.Subscriber<? super double[]> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public synchronized void request(long n) {
+                    largestRequest = Math.max(largestRequest, n);
+                    for (long k = 0; k < n && position < items.size() && cancelled.getCount() > 0; k++) {
+                        subscriber.onNext(items.get(position++));
+                    }
+                    if (position == items.size() && completes && !terminated && cancelled.getCount() > 0) {
+                        terminated = true;
+                        if (failure != null) {
+                            subscriber.onError(failure);
+                        } else {
+                            subscriber.onComplete();
+                        }
+                    }
+                }
+                
+                @Override
+                public void cancel() {
+                    cancelled.countDown();
+                }
+            });
+        }
+    }
+    
+    /**
+     * A subscriber that requests the given number of predictions whenever it has received all it asked for before.
+     */
+    private static final class RecordingSubscriber implements Flow.Subscriber<double[]> {
+        private final long demand;
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        final CountDownLatch received;
+        final List<double[]> outputs = new ArrayList<>();
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile boolean overrun;
+        volatile Throwable error;
+        private long outstanding;
+        
+        RecordingSubscriber(long demand, int expected) {
+            this.demand = demand;
+            this.received = new CountDownLatch(expected);
+        }
+        
+        void awaitTermination() throws InterruptedException {
+            assertTrue(terminated.await(10, TimeUnit.SECONDS), "The stream did not terminate");
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = demand;
+            subscription.request(demand);
+        }
+        
+        @Override
+        public void onNext(double[] item) {
+            if (outstanding == 0) {
+                overrun = true;
+            }
+            outputs.add(item);
+            received.countDown();
+            if (demand != Long.MAX_VALUE && --outstanding == 0) {
+                outstanding = demand;
+                subscription.request(demand);
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+}
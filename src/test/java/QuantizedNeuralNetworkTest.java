@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Quantizes a small network trained on a learnable task and checks that the eight-bit network keeps predicting the
+ * classes of the original, on the calibration sample and on held-out inputs.
+ */
+class QuantizedNeuralNetworkTest {
+    private static final int INPUT_SIZE = 12;
+    private static final int HIDDEN_SIZE = 16;
+    private static final int OUTPUT_SIZE = 3;
+    private static final int SAMPLES = 512;
+    private static final double MIN_AGREEMENT = 0.95;
+    
+    @Test
+    void quantizedNetworkAgreesWithTrainedNetwork() {
+        Random random = new Random(5);
+        double[] teacher = randomArray(OUTPUT_SIZE * INPUT_SIZE, random, 1);
+        NeuralNetwork network = trainedNetwork(teacher, random);
+        double[][] calibrationInputs = inputs(SAMPLES / 2, random);
+        double[][] heldOutInputs = inputs(SAMPLES, random);
+        
+        QuantizedNeuralNetwork quantized = new QuantizedNeuralNetwork(network, calibrationInputs);
+        
+        double calibrationAgreement = quantized.getCalibrationAgreement();
+        assertEquals(quantized.agreement(network, calibrationInputs), calibrationAgreement, 0);
+        assertTrue(calibrationAgreement >= MIN_AGREEMENT, "Calibration agreement " + calibrationAgreement);
+        double heldOutAgreement = quantized.agreement(network, heldOutInputs);
+        assertTrue(heldOutAgreement >= MIN_AGREEMENT, "Held-out agreement " + heldOutAgreement);
+    }
+    
+    /**
+     * Trains a seeded network single-threaded on inputs labelled by the class a linear teacher scores highest.
+     */
+    private static NeuralNetwork trainedNetwork(double[] teacher, Random random) {
+        Layer[] layers = {
+            new Layer(HIDDEN_SIZE, INPUT_SIZE, new ReLU(), randomArray(HIDDEN_SIZE * INPUT_SIZE, random, 0.1),
+                      new double[HIDDEN_SIZE]),
+            new Layer(OUTPUT_SIZE, HIDDEN_SIZE, new Linear(), randomArray(OUTPUT_SIZE * HIDDEN_SIZE, random, 0.1),
+                      new double[OUTPUT_SIZE])
+        };
+        NeuralNetwork network = new NeuralNetwork(layers, new ReLU(), new CrossEntropyLoss());
+        network.getTrainingListeners().forEach(network::removeTrainingListener);
+        network.setRandom(new Random(6));
+        
+        double[][] inputs = inputs(SAMPLES, random);
+        Dataset dataset = new Dataset(SAMPLES, INPUT_SIZE, OUTPUT_SIZE);
+        double[] scores = new double[OUTPUT_SIZE];
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int k = 0; k < OUTPUT_SIZE; k++) {
+                scores[k] = MathUtilities.dotProduct(teacher, k * INPUT_SIZE, inputs[i], 0, INPUT_SIZE);
+            }
+            double[] expected = new double[OUTPUT_SIZE];
+            expected[MathUtilities.argMax(scores)] = 1;
+            dataset.set(i, inputs[i], expected);
+        }
+        network.train(dataset, 20, 0.1, 16, 1);
+        return network;
+    }
+    
+    private static double[][] inputs(int count, Random random) {
+        double[][] inputs = new double[count][INPUT_SIZE];
+        for (double[] input : inputs) {
+            for (int j = 0; j < INPUT_SIZE; j++) {
+                input[j] = random.nextDouble() - 0.5;
+            }
+        }
+        return inputs;
+    }
+    
+    private static double[] randomArray(int length, Random random, double scale) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextGaussian() * scale;
+        }
+        return array;
+    }
+}